@@ -0,0 +1,194 @@
+import java.util.Arrays;
+
+// Edge-affinity construction: every node goes to the cluster where it adds the most intra-cluster
+// edge weight, subject to U. Affinities conn(u, c) are accumulated sparsely as neighbours are placed
+// and candidate (gain, node, cluster) entries live in a lazy max-heap, so construction is O(m log m).
+public final class AffinityGreedy {
+    private final Graph graph;
+    private final Partition clusters;
+    private final int capacity;
+    private final ClusterHeap lightest;
+
+    // Sparse conn(u, c) table, open addressing on key u * k + c.
+    private long[] connKeys;
+    private int[] connValues;
+    private int connSize;
+
+    // Max-heap of (gain << 32 | entry) with entry indexing the node and cluster arrays.
+    private long[] heap = new long[16];
+    private int heapSize;
+    private int[] entryNodes = new int[16];
+    private int[] entryClusters = new int[16];
+    private int entryCount;
+
+    private AffinityGreedy(Graph graph, SolverConfig config) {
+        this.graph = graph;
+        this.clusters = new Partition(graph, config.clusterCount(), config.lower(), config.upper());
+        // Affinity placements stop at an even share of the total weight so later clusters can still reach L.
+        long share = (graph.totalWeight() + config.clusterCount() - 1) / config.clusterCount();
+        this.capacity = (int) Math.min(config.upper(), Math.max(config.lower(), share));
+        this.lightest = new ClusterHeap(config.clusterCount());
+        for (int c = 0; c < config.clusterCount(); c++) {
+            lightest.update(c, 0);
+        }
+        int tableSize = Integer.highestOneBit(Math.max(16, 4 * graph.edgeCount())) * 2;
+        connKeys = new long[tableSize];
+        connValues = new int[tableSize];
+        Arrays.fill(connKeys, -1L);
+    }
+
+    public static Partition construct(Graph graph, SolverConfig config) {
+        return new AffinityGreedy(graph, config).build();
+    }
+
+    private Partition build() {
+        int n = graph.nodeCount();
+        Integer[] order = new Integer[n];
+        for (int u = 0; u < n; u++) {
+            order[u] = u;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(graph.weight(b), graph.weight(a)));
+
+        boolean overfilled = false;
+        int next = 0;
+        int placed = 0;
+        while (placed < n) {
+            int node;
+            int cluster;
+            if (heapSize > 0) {
+                long top = pop();
+                int gain = (int) (top >> 32);
+                int entry = (int) top;
+                node = entryNodes[entry];
+                cluster = entryClusters[entry];
+                if (clusters.clusterOf(node) >= 0 || gain <= 0 || gain != conn(node, cluster)
+                        || clusters.weight(cluster) + graph.weight(node) > capacity) {
+                    continue;
+                }
+            } else {
+                // No positive affinity left: seed the lightest cluster with the heaviest unplaced node.
+                while (clusters.clusterOf(order[next]) >= 0) {
+                    next++;
+                }
+                node = order[next];
+                cluster = lightest.peek();
+                overfilled |= clusters.weight(cluster) + graph.weight(node) > clusters.upper();
+            }
+            place(node, cluster);
+            placed++;
+        }
+        if (overfilled || !clusters.isFeasible()) {
+            GraphOptimization.repairClusters(clusters);
+        }
+        return clusters;
+    }
+
+    private void place(int node, int cluster) {
+        clusters.relocate(node, cluster);
+        lightest.update(cluster, clusters.weight(cluster));
+        for (int e = graph.adjacencyStart(node); e < graph.adjacencyEnd(node); e++) {
+            int neighbour = graph.target(e);
+            if (clusters.clusterOf(neighbour) < 0) {
+                push(addConn(neighbour, cluster, graph.edgeWeight(e)), neighbour, cluster);
+            }
+        }
+    }
+
+    private int conn(int node, int cluster) {
+        long key = (long) node * clusters.clusterCount() + cluster;
+        int mask = connKeys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (connKeys[i] == key) {
+                return connValues[i];
+            }
+            if (connKeys[i] < 0) {
+                return 0;
+            }
+        }
+    }
+
+    private int addConn(int node, int cluster, int weight) {
+        if (2 * (connSize + 1) > connKeys.length) {
+            growConn();
+        }
+        long key = (long) node * clusters.clusterCount() + cluster;
+        int mask = connKeys.length - 1;
+        int i = mix(key) & mask;
+        while (connKeys[i] >= 0 && connKeys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (connKeys[i] < 0) {
+            connKeys[i] = key;
+            connSize++;
+        }
+        return connValues[i] += weight;
+    }
+
+    private void growConn() {
+        long[] oldKeys = connKeys;
+        int[] oldValues = connValues;
+        connKeys = new long[oldKeys.length * 2];
+        connValues = new int[oldKeys.length * 2];
+        Arrays.fill(connKeys, -1L);
+        int mask = connKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] >= 0) {
+                int i = mix(oldKeys[j]) & mask;
+                while (connKeys[i] >= 0) {
+                    i = (i + 1) & mask;
+                }
+                connKeys[i] = oldKeys[j];
+                connValues[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    private void push(int gain, int node, int cluster) {
+        if (gain <= 0) {
+            return;
+        }
+        if (entryCount == entryNodes.length) {
+            entryNodes = Arrays.copyOf(entryNodes, entryCount * 2);
+            entryClusters = Arrays.copyOf(entryClusters, entryCount * 2);
+        }
+        entryNodes[entryCount] = node;
+        entryClusters[entryCount] = cluster;
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        long item = ((long) gain << 32) | entryCount++;
+        int index = heapSize++;
+        while (index > 0 && heap[(index - 1) >>> 1] < item) {
+            heap[index] = heap[(index - 1) >>> 1];
+            index = (index - 1) >>> 1;
+        }
+        heap[index] = item;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= last) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = last;
+        return top;
+    }
+}
@@ -0,0 +1,29 @@
+public enum Algorithm {
+    GREEDY("Greedy Heuristic"),
+    AFFINITY_GREEDY("Affinity Greedy"),
+    LOCAL_SEARCH("Local Search"),
+    SIMULATED_ANNEALING("Simulated Annealing"),
+    TABU_SEARCH("Tabu Search"),
+    FM_REFINEMENT("FM Refinement"),
+    MULTILEVEL("Multilevel"),
+    PARALLEL_TEMPERING("Parallel Tempering");
+
+    private final String displayName;
+
+    Algorithm(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+
+    public static Algorithm fromName(String name) {
+        for (Algorithm algorithm : values()) {
+            if (algorithm.displayName.equals(name) || algorithm.name().equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown algorithm: " + name);
+    }
+}
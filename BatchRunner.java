@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Headless entry point: loads a graph file, runs one algorithm with the given settings and writes
+// the best solution plus per-run statistics without starting AWT/Swing.
+public final class BatchRunner {
+    private static final String USAGE = String.join("\n",
+            "Usage: java BatchRunner (--graph FILE.bin | --nodes FILE --edges FILE) --lower L --upper U [options]",
+            "  --algorithm NAME    greedy, affinity_greedy, local_search, simulated_annealing, tabu_search,",
+            "                      fm_refinement, multilevel, parallel_tempering (default simulated_annealing)",
+            "  --k N               number of clusters (default 2)",
+            "  --iterations N      iterations per run (default 10000, unlimited with --time-budget)",
+            "  --runs N            independent restarts (default 10); parallel_tempering runs once, with its",
+            "                      replicas spread over --threads, and prints its best-score trace;",
+            "                      multilevel also runs once and prints the time of each stage",
+            "  --replicas N        parallel tempering replicas (default: available processors)",
+            "  --seed N            random seed (default: time based)",
+            "  --threads N         parallel restarts (default: available processors)",
+            "  --cooling NAME      annealing schedule: geometric, lundy-mees, adaptive (default geometric)",
+            "  --reheat BOOL       reheat annealing when it stagnates (default true)",
+            "  --cache-mb N        memory cap for partition score caches, 0 disables (default 8)",
+            "  --time-budget SEC   stop the search after SEC seconds and keep the best solution so far",
+            "  --progress-ms N     print progress to stderr every N milliseconds",
+            "  --out PREFIX        writes PREFIX.sol, PREFIX-runs.csv and PREFIX-assignment.csv (default: solution)");
+
+    private BatchRunner() {
+    }
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(parse(args)));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error: " + e);
+            System.exit(1);
+        }
+    }
+
+    static int run(Map<String, String> options) throws IOException {
+        Graph graph;
+        if (options.containsKey("graph")) {
+            graph = GraphLoader.loadBinary(Paths.get(options.get("graph")));
+        } else if (options.containsKey("nodes") && options.containsKey("edges")) {
+            graph = GraphLoader.loadText(Paths.get(options.get("nodes")), Paths.get(options.get("edges")));
+        } else {
+            throw new IllegalArgumentException("Either --graph or both --nodes and --edges are required");
+        }
+        if (!options.containsKey("lower") || !options.containsKey("upper")) {
+            throw new IllegalArgumentException("--lower and --upper are required");
+        }
+
+        SolverConfig config = SolverConfig.defaults()
+                .withClusterCount(intOption(options, "k", 2))
+                .withLimits(intOption(options, "lower", 0), intOption(options, "upper", 0))
+                .withIterations(intOption(options, "iterations", options.containsKey("time-budget") ? Integer.MAX_VALUE : 10_000))
+                .withRuns(intOption(options, "runs", 10))
+                .withParallelism(intOption(options, "threads", Runtime.getRuntime().availableProcessors()))
+                .withReplicas(intOption(options, "replicas", Runtime.getRuntime().availableProcessors()))
+                .withTimeBudget(Double.parseDouble(options.getOrDefault("time-budget", "0")))
+                .withCacheMemory((long) intOption(options, "cache-mb", 8) << 20)
+                .withCooling(options.getOrDefault("cooling", "geometric"), Boolean.parseBoolean(options.getOrDefault("reheat", "true")));
+        if (options.containsKey("seed")) {
+            config = config.withSeed(Long.parseLong(options.get("seed")));
+        }
+        Algorithm algorithm = Algorithm.fromName(options.getOrDefault("algorithm", "simulated_annealing"));
+
+        SolverListener listener = null;
+        if (options.containsKey("progress-ms")) {
+            listener = event -> System.err.printf("%.1f sec: best %d, %.0f iterations/sec, acceptance %.3f%n",
+                    event.elapsedSeconds(), event.bestScore(), event.iterationsPerSecond(), event.acceptanceRate());
+        }
+        SearchControl control = new SearchControl(config.timeBudgetSeconds(), listener, intOption(options, "progress-ms", 1000));
+        ClusteringSolver solver = new ClusteringSolver(graph, config);
+        RunStatistics statistics;
+        if (algorithm == Algorithm.PARALLEL_TEMPERING) {
+            long startTime = System.nanoTime();
+            ReplicaExchange exchange = solver.solveParallelTempering(control);
+            double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+            statistics = new RunStatistics(algorithm, new int[]{exchange.bestScore()}, new double[]{seconds}, exchange.best().assignment());
+            System.out.print(GraphOptimization.displayParallelTempering(exchange));
+        } else if (algorithm == Algorithm.MULTILEVEL) {
+            Multilevel multilevel = new Multilevel(config);
+            long startTime = System.nanoTime();
+            Partition clusters = multilevel.run(graph, new SplittableRandom(config.seed()), control);
+            double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+            int score = clusters.score();
+            statistics = new RunStatistics(algorithm, new int[]{score}, new double[]{seconds}, clusters.assignment());
+            System.out.print(GraphOptimization.displayMultilevel(multilevel, score));
+        } else {
+            statistics = solver.solve(algorithm, control);
+        }
+
+        String prefix = options.getOrDefault("out", "solution");
+        SolutionWriter.writeBinary(Paths.get(prefix + ".sol"), statistics, config.clusterCount());
+        SolutionWriter.writeRunsCsv(Paths.get(prefix + "-runs.csv"), statistics);
+        SolutionWriter.writeAssignmentCsv(Paths.get(prefix + "-assignment.csv"), graph, statistics);
+
+        System.out.printf("%s: %d runs, best %d, average %.2f, stddev %.2f, average time %.6f sec (seed %d)%n",
+                algorithm.displayName(), statistics.runs(), statistics.bestScore(), statistics.averageScore(),
+                statistics.stdDevScore(), statistics.averageTime(), config.seed());
+        if (SolverMetrics.ENABLED) {
+            System.err.print(SolverMetrics.report());
+        }
+        return statistics.runs() > 0 ? 0 : 1;
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be an integer: " + value);
+        }
+    }
+}
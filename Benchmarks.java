@@ -0,0 +1,146 @@
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+// Microbenchmarks for scoring, move evaluation and each optimizer on synthetic graphs of
+// parameterized size and density. Follows the JMH measurement model (timed warmup and measurement
+// iterations, ops/s with a 95% confidence interval, bytes allocated per op) but runs in-process,
+// since JMH cannot generate harness code for classes in the default package. The solvers count into
+// private metrics, and the scratch partition is reset outside the timed section.
+//
+// java Benchmarks [--nodes 1000,100000] [--degree 4,16] [--k 8] [--warmup 3] [--iterations 5] [--time-ms 500] [--filter name]
+public final class Benchmarks {
+    private static long sink;
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = BatchRunner.parse(args);
+        int[] sizes = intList(options.getOrDefault("nodes", "1000,100000"));
+        int[] degrees = intList(options.getOrDefault("degree", "4,16"));
+        int k = Integer.parseInt(options.getOrDefault("k", "8"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "5"));
+        long timeNanos = Long.parseLong(options.getOrDefault("time-ms", "500")) * 1_000_000L;
+        String filter = options.getOrDefault("filter", "");
+
+        System.out.printf("%-24s %9s %7s %16s %12s %14s%n", "Benchmark", "nodes", "degree", "ops/s", "95% CI", "alloc B/op");
+        for (int n : sizes) {
+            for (int degree : degrees) {
+                Graph graph = new GraphGenerator(42L, 10, 10).erdosRenyi(n, (double) degree / Math.max(1, n - 1));
+                long total = graph.totalWeight();
+                SolverConfig config = SolverConfig.defaults()
+                        .withClusterCount(k)
+                        .withLimits((int) (total / k * 0.8), (int) (total / k * 1.2) + 1);
+                Partition partition = GraphOptimization.greedyHeuristic(graph, config);
+                Partition scratch = new Partition(graph, k, config.lower(), config.upper());
+                SplittableRandom random = new SplittableRandom(7);
+                SolverMetrics localMetrics = SolverMetrics.detached(Algorithm.LOCAL_SEARCH);
+                SolverMetrics annealingMetrics = SolverMetrics.detached(Algorithm.SIMULATED_ANNEALING);
+                FmRefiner refiner = new FmRefiner(scratch, SolverMetrics.detached(Algorithm.FM_REFINEMENT));
+                Runnable reset = () -> scratch.copyFrom(partition);
+
+                Map<String, Workload> workloads = new LinkedHashMap<>();
+                workloads.put("calculateScore", new Workload(partition::score));
+                workloads.put("modifyClusters", new Workload(() -> GraphOptimization.modifyClusters(partition, random, localMetrics)));
+                workloads.put("swapDelta", new Workload(() -> {
+                    long move = GraphOptimization.modifyClusters(partition, random, localMetrics);
+                    return move < 0 ? 0 : partition.swapDelta((int) (move >>> 32), (int) move);
+                }));
+                workloads.put("greedyHeuristic", new Workload(() -> GraphOptimization.greedyHeuristic(graph, config).size(0)));
+                workloads.put("affinityGreedy", new Workload(() -> AffinityGreedy.construct(graph, config).size(0)));
+                workloads.put("localSearch(10k)", new Workload(reset, () -> GraphOptimization.localSearch(scratch, 10_000, random,
+                        SearchControl.unlimited(), null, localMetrics)[0]));
+                workloads.put("simulatedAnnealing(10k)", new Workload(reset, () -> GraphOptimization.simulatedAnnealing(scratch, 10_000, random,
+                        SearchControl.unlimited(), CoolingSchedule.create("geometric", true), null, annealingMetrics)[0]));
+                workloads.put("fmRefinement(1 pass)", new Workload(reset, () -> refiner.refine(1)));
+
+                for (Map.Entry<String, Workload> workload : workloads.entrySet()) {
+                    if (workload.getKey().contains(filter)) {
+                        measure(workload.getKey(), n, degree, workload.getValue(), warmup, iterations, timeNanos);
+                    }
+                }
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    // An operation and the setup it needs before each call; only the operation is timed.
+    private static final class Workload {
+        final Runnable setup;
+        final LongSupplier operation;
+
+        Workload(LongSupplier operation) {
+            this(null, operation);
+        }
+
+        Workload(Runnable setup, LongSupplier operation) {
+            this.setup = setup;
+            this.operation = operation;
+        }
+    }
+
+    private static void measure(String name, int n, int degree, Workload workload, int warmup, int iterations, long timeNanos) {
+        for (int i = 0; i < warmup; i++) {
+            runFor(workload, timeNanos);
+        }
+        double[] rates = new double[iterations];
+        long allocatedBefore = allocatedBytes();
+        long totalOps = 0;
+        for (int i = 0; i < iterations; i++) {
+            long[] run = runFor(workload, timeNanos);
+            rates[i] = run[0] / (run[1] / 1_000_000_000.0);
+            totalOps += run[0];
+        }
+        long allocated = allocatedBefore < 0 ? -1 : allocatedBytes() - allocatedBefore;
+
+        double mean = Arrays.stream(rates).average().orElse(0.0);
+        double variance = Arrays.stream(rates).map(rate -> (rate - mean) * (rate - mean)).sum() / Math.max(1, iterations - 1);
+        // Half-width of the normal-approximation interval around the mean rate.
+        double interval = 1.96 * Math.sqrt(variance / iterations);
+        System.out.printf("%-24s %9d %7d %16.1f %12.1f %14.1f%n", name, n, degree, mean, interval,
+                allocated < 0 ? Double.NaN : allocated / (double) totalOps);
+    }
+
+    // Runs the workload until timeNanos have passed; returns the operation count and the nanoseconds
+    // spent in the operations themselves. Without setup the loop is timed as a whole.
+    private static long[] runFor(Workload workload, long timeNanos) {
+        long ops = 0;
+        long start = System.nanoTime();
+        long deadline = start + timeNanos;
+        if (workload.setup == null) {
+            long end;
+            do {
+                sink += workload.operation.getAsLong();
+                ops++;
+                end = System.nanoTime();
+            } while (end - deadline < 0);
+            return new long[]{ops, end - start};
+        }
+        long timed = 0;
+        do {
+            workload.setup.run();
+            long opStart = System.nanoTime();
+            sink += workload.operation.getAsLong();
+            timed += System.nanoTime() - opStart;
+            ops++;
+        } while (System.nanoTime() - deadline < 0);
+        return new long[]{ops, timed};
+    }
+
+    // Bytes allocated by the calling thread, or -1 when the JVM does not expose it.
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static int[] intList(String value) {
+        return Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+}
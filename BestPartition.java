@@ -0,0 +1,55 @@
+// Best state of a search that walks one mutable partition. The best partition is only copied when
+// the walk is about to leave it with a worsening move, so stretches of improving and sideways moves
+// cost nothing; until then the walking partition itself holds the best state.
+final class BestPartition {
+    private final Partition best;
+    private int score;
+    private boolean saved;
+
+    BestPartition(Partition walking, int score) {
+        this.best = new Partition(walking.graph(), walking.clusterCount(), walking.lower(), walking.upper());
+        this.score = score;
+    }
+
+    int score() {
+        return score;
+    }
+
+    // Call before applying a move with the given delta to the walking partition.
+    void beforeMove(Partition walking, int delta) {
+        if (delta < 0) {
+            save(walking);
+        }
+    }
+
+    // Call after a move; returns true when the walking partition's new score is a new best.
+    boolean afterMove(int walkingScore) {
+        if (walkingScore > score) {
+            score = walkingScore;
+            saved = false;
+            return true;
+        }
+        return false;
+    }
+
+    // Copies the best state out of the walking partition, if it still holds it, before the walk
+    // replaces it by other means (for example a replica exchange).
+    void save(Partition walking) {
+        if (!saved) {
+            best.copyFrom(walking);
+            saved = true;
+        }
+    }
+
+    // The partition holding the best state: the saved copy, or the walking partition while it is at the best score.
+    Partition holder(Partition walking, int walkingScore) {
+        return saved && walkingScore != score ? best : walking;
+    }
+
+    // Leaves the best state in the walking partition.
+    void restore(Partition walking, int walkingScore) {
+        if (saved && walkingScore != score) {
+            walking.copyFrom(best);
+        }
+    }
+}
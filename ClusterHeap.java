@@ -0,0 +1,106 @@
+import java.util.Arrays;
+
+// Indexed binary min-heap of cluster ids keyed by an int (typically the cluster weight).
+// Peek is O(1); update and removal are O(log k).
+public final class ClusterHeap {
+    private final int[] heap;
+    private final int[] slot;
+    private final int[] keys;
+    private int size;
+
+    public ClusterHeap(int clusterCount) {
+        heap = new int[clusterCount];
+        slot = new int[clusterCount];
+        keys = new int[clusterCount];
+        Arrays.fill(slot, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int cluster) {
+        return slot[cluster] >= 0;
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    public int key(int cluster) {
+        return keys[cluster];
+    }
+
+    // Inserts the cluster or changes its key if it is already present.
+    public void update(int cluster, int key) {
+        if (slot[cluster] < 0) {
+            slot[cluster] = size;
+            heap[size++] = cluster;
+            keys[cluster] = key;
+            siftUp(slot[cluster]);
+            return;
+        }
+        int old = keys[cluster];
+        keys[cluster] = key;
+        if (key < old) {
+            siftUp(slot[cluster]);
+        } else {
+            siftDown(slot[cluster]);
+        }
+    }
+
+    public void remove(int cluster) {
+        int index = slot[cluster];
+        if (index < 0) {
+            return;
+        }
+        int last = heap[--size];
+        slot[cluster] = -1;
+        if (index < size) {
+            heap[index] = last;
+            slot[last] = index;
+            siftUp(index);
+            siftDown(slot[last]);
+        }
+    }
+
+    private void siftUp(int index) {
+        int cluster = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[heap[parent]] <= keys[cluster]) {
+                break;
+            }
+            heap[index] = heap[parent];
+            slot[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = cluster;
+        slot[cluster] = index;
+    }
+
+    private void siftDown(int index) {
+        int cluster = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (keys[heap[child]] >= keys[cluster]) {
+                break;
+            }
+            heap[index] = heap[child];
+            slot[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = cluster;
+        slot[cluster] = index;
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+// Reusable solver for one graph and configuration. Both are immutable and every solve works on its
+// own partitions, random streams and SearchControl, so a single instance can serve any number of
+// concurrent solves. Results are immutable RunStatistics.
+public final class ClusteringSolver {
+    private final Graph graph;
+    private final SolverConfig config;
+
+    public ClusteringSolver(Graph graph, SolverConfig config) {
+        if (graph == null || config == null) {
+            throw new IllegalArgumentException("Graph and config are required");
+        }
+        this.graph = graph;
+        this.config = config;
+    }
+
+    public Graph graph() {
+        return graph;
+    }
+
+    public SolverConfig config() {
+        return config;
+    }
+
+    public RunStatistics solve(Algorithm algorithm) {
+        return solve(algorithm, new SearchControl(config.timeBudgetSeconds(), null, 200));
+    }
+
+    // The control bounds the solve and reports its progress; see MultiStartRunner.run.
+    public RunStatistics solve(Algorithm algorithm, SearchControl control) {
+        return new MultiStartRunner(graph, config).run(algorithm, control);
+    }
+
+    // The solve runs as one task on the executor and its restarts use config.parallelism() threads
+    // of their own (none with parallelism 1), so many concurrent solves are best served by a
+    // parallelism of 1 and an executor sized to the machine. Cancelling the future does not stop a
+    // running solve; stop the control instead.
+    public CompletableFuture<RunStatistics> solveAsync(Algorithm algorithm, Executor executor) {
+        return solveAsync(algorithm, new SearchControl(config.timeBudgetSeconds(), null, 200), executor);
+    }
+
+    public CompletableFuture<RunStatistics> solveAsync(Algorithm algorithm, SearchControl control, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> solve(algorithm, control), executor);
+    }
+
+    // One replica exchange search with config.replicas() replicas spread over config.parallelism()
+    // threads, instead of independent restarts; the result holds the best partition and its trace.
+    public ReplicaExchange solveParallelTempering(SearchControl control) {
+        Partition initial = GraphOptimization.initialClusters(Algorithm.PARALLEL_TEMPERING, graph, config);
+        ReplicaExchange exchange = new ReplicaExchange(initial, config.replicas(), config.parallelism(), new SplittableRandom(config.seed()));
+        exchange.run(config.iterations(), control);
+        return exchange;
+    }
+
+    // Provably optimal partition by branch and bound; the graph must have at most ExactSolver.MAX_NODES
+    // nodes. The control's deadline or stop() ends the search early without proof.
+    public ExactSolver.Result solveExact(SearchControl control) {
+        return new ExactSolver(graph, config).solve(control);
+    }
+
+    public Map<Algorithm, RunStatistics> compare(List<Algorithm> algorithms, SearchControl control) {
+        return compare(algorithms, control, (algorithm, result) -> { });
+    }
+
+    // Runs the algorithms one after another, each under its own control.share() of the budget left,
+    // and hands every result to onResult as it finishes. Algorithms not started before the control
+    // stops are left out; the map iterates in the given order.
+    public Map<Algorithm, RunStatistics> compare(List<Algorithm> algorithms, SearchControl control, BiConsumer<Algorithm, RunStatistics> onResult) {
+        Map<Algorithm, RunStatistics> results = new LinkedHashMap<>();
+        for (int i = 0; i < algorithms.size() && !control.isStopped(); i++) {
+            Algorithm algorithm = algorithms.get(i);
+            RunStatistics result = solve(algorithm, control.share(algorithms.size() - i));
+            results.put(algorithm, result);
+            onResult.accept(algorithm, result);
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    public CompletableFuture<Map<Algorithm, RunStatistics>> compareAsync(List<Algorithm> algorithms, SearchControl control, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> compare(algorithms, control), executor);
+    }
+}
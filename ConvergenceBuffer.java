@@ -0,0 +1,117 @@
+// Fixed-capacity ring of (elapsed seconds, best score, current score) samples, written by solver
+// threads as a SolverListener and read by the live chart. Once full, the oldest samples are
+// overwritten, so memory stays bounded however long a solve runs, and downsample() reduces whatever
+// is held to a fixed number of min/max buckets for drawing.
+public final class ConvergenceBuffer implements SolverListener {
+    private final double[] seconds;
+    private final int[] best;
+    private final int[] current;
+    private int next;
+    private long total;
+
+    public ConvergenceBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.seconds = new double[capacity];
+        this.best = new int[capacity];
+        this.current = new int[capacity];
+    }
+
+    @Override
+    public void onProgress(ProgressEvent event) {
+        add(event.elapsedSeconds(), event.bestScore(), event.currentScore());
+    }
+
+    public synchronized void add(double elapsedSeconds, int bestScore, int currentScore) {
+        seconds[next] = elapsedSeconds;
+        best[next] = bestScore;
+        current[next] = currentScore;
+        next = next + 1 == seconds.length ? 0 : next + 1;
+        total++;
+    }
+
+    // Samples recorded since creation, including overwritten ones.
+    public synchronized long total() {
+        return total;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(total, seconds.length);
+    }
+
+    public synchronized void clear() {
+        next = 0;
+        total = 0;
+    }
+
+    // Splits the time span of the held samples into equal slices and keeps the extremes of each, so
+    // drawing costs O(buckets) and the envelope of the curves survives any amount of data.
+    public synchronized Buckets downsample(int buckets) {
+        if (buckets < 1) {
+            throw new IllegalArgumentException("Bucket count must be positive: " + buckets);
+        }
+        Buckets result = new Buckets(buckets);
+        int size = size();
+        if (size == 0) {
+            return result;
+        }
+        int oldest = total > seconds.length ? next : 0;
+        result.startSeconds = seconds[oldest];
+        result.endSeconds = seconds[(oldest + size - 1) % seconds.length];
+        double span = Math.max(result.endSeconds - result.startSeconds, 1e-9);
+        result.minScore = Integer.MAX_VALUE;
+        result.maxScore = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            int index = (oldest + i) % seconds.length;
+            int bucket = (int) Math.min(buckets - 1, (long) ((seconds[index] - result.startSeconds) / span * buckets));
+            bucket = Math.max(bucket, 0);
+            if (result.counts[bucket]++ == 0) {
+                result.minBest[bucket] = result.maxBest[bucket] = best[index];
+                result.minCurrent[bucket] = result.maxCurrent[bucket] = current[index];
+            } else {
+                result.minBest[bucket] = Math.min(result.minBest[bucket], best[index]);
+                result.maxBest[bucket] = Math.max(result.maxBest[bucket], best[index]);
+                result.minCurrent[bucket] = Math.min(result.minCurrent[bucket], current[index]);
+                result.maxCurrent[bucket] = Math.max(result.maxCurrent[bucket], current[index]);
+            }
+            result.minScore = Math.min(result.minScore, Math.min(best[index], current[index]));
+            result.maxScore = Math.max(result.maxScore, Math.max(best[index], current[index]));
+        }
+        return result;
+    }
+
+    // Per-bucket score extremes over equal time slices; buckets without samples have a count of 0.
+    public static final class Buckets {
+        final int[] counts;
+        final int[] minBest;
+        final int[] maxBest;
+        final int[] minCurrent;
+        final int[] maxCurrent;
+        double startSeconds;
+        double endSeconds;
+        int minScore;
+        int maxScore;
+
+        private Buckets(int buckets) {
+            counts = new int[buckets];
+            minBest = new int[buckets];
+            maxBest = new int[buckets];
+            minCurrent = new int[buckets];
+            maxCurrent = new int[buckets];
+        }
+
+        public int length() {
+            return counts.length;
+        }
+
+        public boolean isEmpty() {
+            for (int count : counts) {
+                if (count > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+import java.util.SplittableRandom;
+
+// Temperature control for simulated annealing. A schedule runs from a starting temperature to a
+// final one as the search's progress (fraction of the iteration or time budget used) goes from 0
+// to 1. Both ends are calibrated from sampled move deltas, so the schedule follows the instance's
+// edge-weight scale. With reheating, a search that has not improved its best score for a while
+// restarts cooling from part of the starting temperature. Instances are stateful: one per run.
+public abstract class CoolingSchedule {
+    private static final int CALIBRATION_SAMPLES = 256;
+    // The mean sampled worsening move is accepted with this probability at the start, the smallest
+    // one at the end: the usual hot start that lets the chain leave the constructed solution, and a
+    // finish cold enough to act as a pure descent.
+    private static final double INITIAL_ACCEPTANCE = 0.8;
+    private static final double FINAL_ACCEPTANCE = 0.001;
+    // Reheat when the best score has not moved for this much progress and the chain has cooled
+    // below the reheat temperature.
+    private static final double STAGNATION = 0.1;
+    private static final double REHEAT_CUTOFF = 0.8;
+    private static final double REHEAT_FRACTION = 0.3;
+
+    private final boolean reheating;
+    double startTemperature;
+    double finalTemperature;
+    double segmentStart;
+    double segmentTemperature;
+    double current;
+    private double lastImprovement;
+    private int reheats;
+
+    CoolingSchedule(boolean reheating) {
+        this.reheating = reheating;
+    }
+
+    // "geometric", "lundy-mees" or "adaptive".
+    public static CoolingSchedule create(String name, boolean reheating) {
+        switch (name.toLowerCase().replace('_', '-')) {
+            case "geometric":
+                return new Geometric(reheating);
+            case "lundy-mees":
+                return new LundyMees(reheating);
+            case "adaptive":
+                return new Adaptive(reheating);
+            default:
+                throw new IllegalArgumentException("Unknown cooling schedule: " + name);
+        }
+    }
+
+    // Estimates the starting and final temperatures from random feasible swaps of the partition,
+    // which is left unchanged.
+    public void calibrate(Partition clusters, SplittableRandom random) {
+        long worseningSum = 0;
+        int worsening = 0;
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+            long move = GraphOptimization.sampleSwap(clusters, random);
+            if (move < 0) {
+                continue;
+            }
+            int delta = clusters.swapDelta((int) (move >>> 32), (int) move);
+            if (delta < 0) {
+                worseningSum -= delta;
+                worsening++;
+                smallest = Math.min(smallest, -delta);
+            }
+        }
+        if (worsening == 0) {
+            start(1.0, 0.01);
+        } else {
+            double initial = -(worseningSum / (double) worsening) / Math.log(INITIAL_ACCEPTANCE);
+            double last = -smallest / Math.log(FINAL_ACCEPTANCE);
+            start(initial, Math.min(last, initial));
+        }
+    }
+
+    public void start(double startTemperature, double finalTemperature) {
+        if (!(finalTemperature > 0) || finalTemperature > startTemperature) {
+            throw new IllegalArgumentException("Need 0 < final <= start temperature: " + finalTemperature + ", " + startTemperature);
+        }
+        this.startTemperature = startTemperature;
+        this.finalTemperature = finalTemperature;
+        this.segmentStart = 0;
+        this.segmentTemperature = startTemperature;
+        this.current = startTemperature;
+        this.lastImprovement = 0;
+        this.reheats = 0;
+    }
+
+    public double temperature() {
+        return current;
+    }
+
+    public int reheats() {
+        return reheats;
+    }
+
+    // Advances the schedule to the given progress. acceptanceRate covers the moves since the last
+    // update and improved tells whether the best score went up in that window.
+    public double update(double progress, double acceptanceRate, boolean improved) {
+        if (improved) {
+            lastImprovement = progress;
+        } else if (reheating && progress - lastImprovement > STAGNATION && progress < REHEAT_CUTOFF
+                && current < startTemperature * REHEAT_FRACTION) {
+            segmentStart = progress;
+            segmentTemperature = startTemperature * REHEAT_FRACTION;
+            lastImprovement = progress;
+            reheats++;
+        }
+        current = Math.max(finalTemperature, next(Math.min(1.0, progress), acceptanceRate));
+        return current;
+    }
+
+    abstract double next(double progress, double acceptanceRate);
+
+    // Position within the current cooling segment, which restarts at each reheat.
+    double segmentFraction(double progress) {
+        return segmentStart >= 1 ? 1 : (progress - segmentStart) / (1 - segmentStart);
+    }
+
+    // T = T0 * (Tf / T0)^f: a constant factor per step, sized so the budget ends at Tf.
+    private static final class Geometric extends CoolingSchedule {
+        Geometric(boolean reheating) {
+            super(reheating);
+        }
+
+        @Override
+        double next(double progress, double acceptanceRate) {
+            return segmentTemperature * Math.pow(finalTemperature / segmentTemperature, segmentFraction(progress));
+        }
+    }
+
+    // Lundy–Mees T(k+1) = T(k) / (1 + beta T(k)) in closed form: 1/T grows linearly to 1/Tf, so
+    // the schedule stays hot longer than geometric cooling and then drops quickly.
+    private static final class LundyMees extends CoolingSchedule {
+        LundyMees(boolean reheating) {
+            super(reheating);
+        }
+
+        @Override
+        double next(double progress, double acceptanceRate) {
+            double inverse = 1 / segmentTemperature;
+            return 1 / (inverse + segmentFraction(progress) * (1 / finalTemperature - inverse));
+        }
+    }
+
+    // Steers the temperature toward a target acceptance rate that follows the modified Lam
+    // schedule: from near 1 down to 0.44 over the first 15% of the budget, flat until 65%, then
+    // down toward 0. It never heats above the calibrated start, so targets above the initial
+    // acceptance hold it there.
+    private static final class Adaptive extends CoolingSchedule {
+        private static final double STEP = 0.95;
+
+        Adaptive(boolean reheating) {
+            super(reheating);
+        }
+
+        @Override
+        double next(double progress, double acceptanceRate) {
+            double target;
+            if (progress < 0.15) {
+                target = 0.44 + 0.56 * Math.pow(560, -progress / 0.15);
+            } else if (progress < 0.65) {
+                target = 0.44;
+            } else {
+                target = 0.44 * Math.pow(440, -(progress - 0.65) / 0.35);
+            }
+            double temperature = segmentFraction(progress) == 0 ? segmentTemperature : current;
+            temperature = acceptanceRate > target ? temperature * STEP : temperature / STEP;
+            return Math.min(startTemperature, temperature);
+        }
+    }
+}
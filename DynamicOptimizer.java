@@ -0,0 +1,272 @@
+import java.util.*;
+
+// Keeps a partition up to date while nodes and edges are added, removed or reweighted. Changes are
+// applied straight to an editable copy of the int-id graph and to the live partition, keeping the
+// score current edge by edge. reoptimize() then places new nodes in their best-connected cluster,
+// repairs bounds, and runs seeded FM passes over the neighbourhoods of changed nodes, adding their
+// gains to the score; nothing is rebuilt or rescored. Only the first call solves from scratch.
+public final class DynamicOptimizer {
+    private static final int LOCAL_PASSES = 4;
+
+    private final SolverConfig config;
+    private final Algorithm initialAlgorithm;
+    private final Graph graph = new Graph.Builder(0, 0).build().editableCopy();
+    // Ids of removed nodes, reused by later additions so the id range stays dense.
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private final Set<Integer> dirty = new LinkedHashSet<>();
+    private Partition clusters;
+    private FmRefiner refiner;
+    private int[] seeds = new int[0];
+    private int[] seedStamps = new int[0];
+    private int seedStamp;
+    private int score;
+    private int moved;
+
+    public DynamicOptimizer(SolverConfig config, Algorithm initialAlgorithm) {
+        this.config = config;
+        this.initialAlgorithm = initialAlgorithm;
+    }
+
+    // Adds a node or replaces the weight of an existing one.
+    public void addNode(String name, int weight) {
+        int u = graph.id(name);
+        if (u >= 0) {
+            setWeight(u, weight);
+        } else if (!freeIds.isEmpty()) {
+            u = freeIds.pop();
+            graph.setNode(u, name, weight);
+        } else {
+            u = graph.addNode(name, weight);
+            if (clusters != null) {
+                clusters.grow();
+            }
+        }
+        dirty.add(u);
+    }
+
+    public void setNodeWeight(String name, int weight) {
+        setWeight(requireNode(name), weight);
+    }
+
+    // Also removes every edge of the node; its former neighbours are re-refined.
+    public void removeNode(String name) {
+        int u = requireNode(name);
+        while (graph.degree(u) > 0) {
+            int v = graph.target(graph.adjacencyStart(u));
+            deleteEdge(u, v);
+        }
+        if (clusters != null) {
+            clusters.relocate(u, -1);
+        }
+        graph.setNode(u, null, 0);
+        dirty.remove(u);
+        freeIds.push(u);
+    }
+
+    // Adds an undirected edge or replaces the weight of an existing one; both nodes must exist.
+    public void addEdge(String a, String b, int weight) {
+        int u = requireNode(a);
+        int v = requireNode(b);
+        if (u == v) {
+            throw new IllegalArgumentException("Self-loops are not allowed: " + a);
+        }
+        int e = graph.edgeIndex(u, v);
+        int previous = e >= 0 ? graph.edgeWeight(e) : 0;
+        graph.putEdge(u, v, weight);
+        if (sameCluster(u, v)) {
+            score += weight - previous;
+        }
+        dirty.add(u);
+        dirty.add(v);
+    }
+
+    public void setEdgeWeight(String a, String b, int weight) {
+        requireEdge(a, b);
+        addEdge(a, b, weight);
+    }
+
+    public void removeEdge(String a, String b) {
+        deleteEdge(requireNode(a), requireNode(b));
+    }
+
+    // Nodes touched by changes not yet applied by reoptimize().
+    public int pendingChanges() {
+        return dirty.size();
+    }
+
+    // Applies all pending changes and returns the updated partition. The partition is live: later
+    // changes and calls update it in place.
+    public Partition reoptimize() {
+        return reoptimize(SearchControl.unlimited());
+    }
+
+    // The control bounds the initial solve and is checked between refinement passes; even when it
+    // stops early, every node is placed and the bounds are repaired where possible.
+    public Partition reoptimize(SearchControl control) {
+        if (clusters == null) {
+            solveInitial(control);
+        } else if (!dirty.isEmpty()) {
+            moved = 0;
+            placeNewNodes();
+            if (!clusters.isFeasible()) {
+                GraphOptimization.repairClusters(clusters, (node, target) -> {
+                    score += clusters.relocateDelta(node, target);
+                    moved++;
+                });
+            }
+            refiner.grow();
+            int[] passSeeds = seeds();
+            for (int pass = 0; pass < LOCAL_PASSES && !control.isStopped(); pass++) {
+                int gain = refiner.pass(passSeeds);
+                if (gain <= 0) {
+                    break;
+                }
+                score += gain;
+                moved += refiner.keptMoves();
+            }
+        }
+        dirty.clear();
+        return clusters;
+    }
+
+    public int score() {
+        return score;
+    }
+
+    // Node moves made by the last reoptimize(), counting a node each time it moves; every node after
+    // the initial solve.
+    public int movedNodes() {
+        return moved;
+    }
+
+    // Current cluster of the node, or -1 if it is unknown or has not been placed by reoptimize() yet.
+    public int clusterOf(String name) {
+        int u = graph.id(name);
+        return u >= 0 && clusters != null ? clusters.clusterOf(u) : -1;
+    }
+
+    private void solveInitial(SearchControl control) {
+        clusters = new Partition(graph, config.clusterCount(), config.lower(), config.upper());
+        int[] best = graph.nodeCount() == 0 ? null
+                : new MultiStartRunner(graph, config).run(initialAlgorithm, control).bestAssignment();
+        if (best == null && graph.nodeCount() > 0) {
+            // Stopped before any restart finished.
+            best = GraphOptimization.initialClusters(initialAlgorithm, graph, config).assignment();
+        }
+        for (int u = 0; best != null && u < best.length; u++) {
+            clusters.relocate(u, best[u]);
+        }
+        // Removed nodes stay in the graph without edges or weight until their ids are reused.
+        for (int u : freeIds) {
+            clusters.relocate(u, -1);
+        }
+        refiner = new FmRefiner(clusters);
+        score = clusters.score();
+        moved = graph.nodeCount() - freeIds.size();
+    }
+
+    // New nodes go, in order, to the cluster they are most strongly connected to among those with
+    // room under U, or to the lightest cluster when none has room.
+    private void placeNewNodes() {
+        int k = clusters.clusterCount();
+        for (int u : dirty) {
+            if (clusters.clusterOf(u) >= 0) {
+                continue;
+            }
+            int target = -1;
+            int targetDelta = 0;
+            int lightest = 0;
+            for (int c = 0; c < k; c++) {
+                if (clusters.weight(c) < clusters.weight(lightest)) {
+                    lightest = c;
+                }
+                if (clusters.weight(c) + graph.weight(u) <= clusters.upper()) {
+                    int delta = clusters.relocateDelta(u, c);
+                    if (target < 0 || delta > targetDelta) {
+                        target = c;
+                        targetDelta = delta;
+                    }
+                }
+            }
+            if (target < 0) {
+                target = lightest;
+                targetDelta = clusters.relocateDelta(u, target);
+            }
+            clusters.relocate(u, target);
+            score += targetDelta;
+            moved++;
+        }
+    }
+
+    // Changed nodes and their direct neighbours.
+    private int[] seeds() {
+        if (seedStamps.length < graph.nodeCount()) {
+            seedStamps = Arrays.copyOf(seedStamps, Math.max(graph.nodeCount(), seedStamps.length * 2));
+        }
+        seedStamp++;
+        int count = 0;
+        for (int u : dirty) {
+            count = addSeed(u, count);
+            for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+                count = addSeed(graph.target(e), count);
+            }
+        }
+        return Arrays.copyOf(seeds, count);
+    }
+
+    private int addSeed(int u, int count) {
+        if (seedStamps[u] == seedStamp) {
+            return count;
+        }
+        seedStamps[u] = seedStamp;
+        if (count == seeds.length) {
+            seeds = Arrays.copyOf(seeds, Math.max(16, count * 2));
+        }
+        seeds[count] = u;
+        return count + 1;
+    }
+
+    private void setWeight(int u, int weight) {
+        int cluster = clusters != null ? clusters.clusterOf(u) : -1;
+        if (cluster >= 0) {
+            // Take the node out while its weight changes so the cluster weights stay consistent.
+            clusters.relocate(u, -1);
+        }
+        graph.setNode(u, graph.name(u), weight);
+        if (cluster >= 0) {
+            clusters.relocate(u, cluster);
+        }
+        dirty.add(u);
+    }
+
+    private void deleteEdge(int u, int v) {
+        int e = graph.edgeIndex(u, v);
+        if (e < 0) {
+            throw new IllegalArgumentException("Unknown edge: " + graph.name(u) + " - " + graph.name(v));
+        }
+        if (sameCluster(u, v)) {
+            score -= graph.edgeWeight(e);
+        }
+        graph.removeEdge(u, v);
+        dirty.add(u);
+        dirty.add(v);
+    }
+
+    private boolean sameCluster(int u, int v) {
+        return clusters != null && clusters.clusterOf(u) >= 0 && clusters.clusterOf(u) == clusters.clusterOf(v);
+    }
+
+    private int requireNode(String name) {
+        int u = graph.id(name);
+        if (u < 0) {
+            throw new IllegalArgumentException("Unknown node: " + name);
+        }
+        return u;
+    }
+
+    private void requireEdge(String a, String b) {
+        if (graph.edgeIndex(requireNode(a), requireNode(b)) < 0) {
+            throw new IllegalArgumentException("Unknown edge: " + a + " - " + b);
+        }
+    }
+}
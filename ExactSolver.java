@@ -0,0 +1,409 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+// Branch and bound over all L/U-feasible k-partitions of graphs with at most 64 nodes, proving the
+// optimum, starting from a tabu-polished heuristic incumbent. Nodes are placed one at a time and each
+// cluster's members are a long bitset, so the gain of joining a cluster is a walk over the set bits
+// of (members & neighbours). Clusters are interchangeable, so a node may open at most one new
+// cluster. A subtree is cut when its bound (current score, plus each unplaced node's best positive
+// connection into a single cluster, plus all positive weight among unplaced nodes) cannot beat the
+// incumbent, or when the unplaced weight can no longer bring every cluster within [L, U]. The top
+// levels of the tree are split into ForkJoin tasks that share the incumbent.
+public final class ExactSolver {
+    public static final int MAX_NODES = 64;
+    // Subtrees are forked until there are about this many per thread, to even out their sizes.
+    private static final int TASKS_PER_THREAD = 16;
+    private static final int SEED_ITERATIONS = 20_000;
+
+    private final Graph graph;
+    private final SolverConfig config;
+    private final int n;
+    private final int k;
+    private final int[] order;
+    private final int[] weights;
+    private final int[][] edgeWeights;
+    private final long[] neighbours;
+    private final int[] positiveAmongRest;
+    private final int[] restWeight;
+
+    private volatile int incumbent;
+    private int[] incumbentAssignment;
+    private volatile boolean aborted;
+    private final LongAdder explored = new LongAdder();
+    private SearchControl control;
+    private int splitDepth;
+
+    public ExactSolver(Graph graph, SolverConfig config) {
+        if (graph.nodeCount() > MAX_NODES) {
+            throw new IllegalArgumentException("Exact solving supports at most " + MAX_NODES + " nodes, got " + graph.nodeCount());
+        }
+        this.graph = graph;
+        this.config = config;
+        this.n = graph.nodeCount();
+        this.k = config.clusterCount();
+
+        long[] positiveDegree = new long[n];
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+                positiveDegree[u] += Math.max(0, graph.edgeWeight(e));
+            }
+        }
+        // Maximum adjacency order: each next node is the one most strongly tied to those already
+        // ordered, so edges are decided early and the bound tightens quickly.
+        this.order = new int[n];
+        int[] position = new int[n];
+        long[] tie = new long[n];
+        boolean[] ordered = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int next = -1;
+            for (int u = 0; u < n; u++) {
+                if (!ordered[u] && (next < 0 || tie[u] > tie[next] || (tie[u] == tie[next] && positiveDegree[u] > positiveDegree[next]))) {
+                    next = u;
+                }
+            }
+            ordered[next] = true;
+            order[i] = next;
+            position[next] = i;
+            for (int e = graph.adjacencyStart(next); e < graph.adjacencyEnd(next); e++) {
+                tie[graph.target(e)] += Math.max(0, graph.edgeWeight(e));
+            }
+        }
+
+        // Everything below is indexed by placement position rather than node id.
+        this.weights = new int[n];
+        this.edgeWeights = new int[n][n];
+        this.neighbours = new long[n];
+        for (int i = 0; i < n; i++) {
+            int u = order[i];
+            weights[i] = graph.weight(u);
+            for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+                int j = position[graph.target(e)];
+                if (j != i) {
+                    edgeWeights[i][j] += graph.edgeWeight(e);
+                    neighbours[i] |= 1L << j;
+                }
+            }
+        }
+        this.positiveAmongRest = new int[n + 1];
+        this.restWeight = new int[n + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            int positive = 0;
+            for (int j = i + 1; j < n; j++) {
+                positive += Math.max(0, edgeWeights[i][j]);
+            }
+            positiveAmongRest[i] = positiveAmongRest[i + 1] + positive;
+            restWeight[i] = restWeight[i + 1] + weights[i];
+        }
+    }
+
+    public Result solve() {
+        return solve(SearchControl.unlimited());
+    }
+
+    // Stops early, without proof of optimality, when the control's deadline passes or stop() is called.
+    public Result solve(SearchControl control) {
+        long startTime = System.nanoTime();
+        this.control = control;
+        aborted = false;
+        explored.reset();
+        incumbent = Integer.MIN_VALUE;
+        incumbentAssignment = null;
+
+        // A heuristic solution to prune against from the start.
+        Partition seed = AffinityGreedy.construct(graph, config);
+        new FmRefiner(seed).refine(10);
+        if (n > 0) {
+            new TabuSearch(seed).run(SEED_ITERATIONS, new SplittableRandom(config.seed()), SearchControl.unlimited());
+        }
+        if (seed.isFeasible()) {
+            improve(seed.score(), seed.assignment());
+        }
+
+        int parallelism = config.parallelism();
+        Search root = new Search();
+        if (parallelism == 1 || n == 0) {
+            splitDepth = 0;
+            root.search(0, null);
+            root.flush();
+        } else {
+            splitDepth = Math.min(n, (int) Math.ceil(Math.log((double) TASKS_PER_THREAD * parallelism) / Math.log(Math.max(2, k))));
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new Subtree(root, 0));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        int[] assignment;
+        synchronized (this) {
+            assignment = incumbentAssignment;
+        }
+        if (assignment != null) {
+            control.complete(0, 0, incumbent, partition(assignment));
+        }
+        return new Result(incumbent, assignment, !aborted, explored.sum(), (System.nanoTime() - startTime) / 1_000_000_000.0);
+    }
+
+    // Assignment is indexed by node id.
+    private synchronized void improve(int score, int[] assignment) {
+        if (score > incumbent) {
+            incumbentAssignment = assignment;
+            incumbent = score;
+        }
+    }
+
+    private Partition partition(int[] assignment) {
+        Partition partition = new Partition(graph, k, config.lower(), config.upper());
+        for (int u = 0; u < n; u++) {
+            partition.relocate(u, assignment[u]);
+        }
+        return partition;
+    }
+
+    // Search state of one subtree; forked subtrees work on copies.
+    private final class Search {
+        private final long[] members;
+        private final int[] clusterWeights;
+        // Positive edge weight from each unplaced position into each cluster's placed members.
+        private final int[] positiveConn;
+        private final int[] clusters;
+        private final int[][] gains;
+        private final int[][] candidates;
+        private int score;
+        private int used;
+        private int sinceCheck;
+
+        Search() {
+            members = new long[k];
+            clusterWeights = new int[k];
+            positiveConn = new int[n * k];
+            clusters = new int[n];
+            gains = new int[n][k];
+            candidates = new int[n][k];
+        }
+
+        Search(Search other) {
+            members = other.members.clone();
+            clusterWeights = other.clusterWeights.clone();
+            positiveConn = other.positiveConn.clone();
+            clusters = other.clusters.clone();
+            gains = new int[n][k];
+            candidates = new int[n][k];
+            score = other.score;
+            used = other.used;
+        }
+
+        // Places positions i.. in every feasible way. With forks non-null the children of this node
+        // are collected as copies instead of being searched.
+        void search(int i, List<Search> forks) {
+            if (aborted) {
+                return;
+            }
+            if (++sinceCheck == SearchControl.CHECK_INTERVAL) {
+                explored.add(sinceCheck);
+                sinceCheck = 0;
+                int best = incumbent;
+                int[] assignment;
+                synchronized (ExactSolver.this) {
+                    assignment = incumbentAssignment;
+                }
+                if (control.checkpoint(SearchControl.CHECK_INTERVAL, 0, score, best, assignment != null ? partition(assignment) : null)) {
+                    aborted = true;
+                    return;
+                }
+            }
+
+            if (i == n) {
+                for (int c = 0; c < k; c++) {
+                    if (clusterWeights[c] < config.lower()) {
+                        return;
+                    }
+                }
+                if (score > incumbent) {
+                    int[] assignment = new int[n];
+                    for (int p = 0; p < n; p++) {
+                        assignment[order[p]] = clusters[p];
+                    }
+                    improve(score, assignment);
+                }
+                return;
+            }
+
+            if (bound(i) <= incumbent || !canStillFit(i)) {
+                return;
+            }
+
+            // Candidate clusters by decreasing gain, so good solutions and tight incumbents come early.
+            int[] gain = gains[i];
+            int[] candidate = candidates[i];
+            int count = 0;
+            int open = Math.min(k - 1, used);
+            for (int c = 0; c <= open; c++) {
+                if (clusterWeights[c] + weights[i] > config.upper()) {
+                    continue;
+                }
+                int g = 0;
+                for (long bits = members[c] & neighbours[i]; bits != 0; bits &= bits - 1) {
+                    g += edgeWeights[i][Long.numberOfTrailingZeros(bits)];
+                }
+                int slot = count++;
+                while (slot > 0 && gain[candidate[slot - 1]] < g) {
+                    candidate[slot] = candidate[slot - 1];
+                    slot--;
+                }
+                candidate[slot] = c;
+                gain[c] = g;
+            }
+
+            for (int j = 0; j < count; j++) {
+                int c = candidate[j];
+                place(i, c, gain[c]);
+                if (forks != null) {
+                    forks.add(new Search(this));
+                } else {
+                    search(i + 1, null);
+                }
+                unplace(i, c, gain[c]);
+            }
+        }
+
+        // Upper bound on the score of any completion of positions 0..i-1.
+        private long bound(int i) {
+            long bound = (long) score + positiveAmongRest[i];
+            for (int u = i; u < n; u++) {
+                int best = 0;
+                for (int c = 0; c < k; c++) {
+                    best = Math.max(best, positiveConn[u * k + c]);
+                }
+                bound += best;
+            }
+            return bound;
+        }
+
+        // Whether the unplaced weight can still lift every cluster to L without pushing any above U.
+        private boolean canStillFit(int i) {
+            long deficit = 0;
+            long room = 0;
+            for (int c = 0; c < k; c++) {
+                deficit += Math.max(0, config.lower() - clusterWeights[c]);
+                room += Math.max(0, config.upper() - clusterWeights[c]);
+            }
+            return deficit <= restWeight[i] && restWeight[i] <= room;
+        }
+
+        private void place(int i, int c, int gain) {
+            members[c] |= 1L << i;
+            clusterWeights[c] += weights[i];
+            clusters[i] = c;
+            score += gain;
+            if (c == used) {
+                used++;
+            }
+            for (long bits = neighbours[i] & (-1L << i << 1); bits != 0; bits &= bits - 1) {
+                int j = Long.numberOfTrailingZeros(bits);
+                positiveConn[j * k + c] += Math.max(0, edgeWeights[i][j]);
+            }
+        }
+
+        private void unplace(int i, int c, int gain) {
+            for (long bits = neighbours[i] & (-1L << i << 1); bits != 0; bits &= bits - 1) {
+                int j = Long.numberOfTrailingZeros(bits);
+                positiveConn[j * k + c] -= Math.max(0, edgeWeights[i][j]);
+            }
+            if (members[c] == 1L << i) {
+                used--;
+            }
+            members[c] &= ~(1L << i);
+            clusterWeights[c] -= weights[i];
+            score -= gain;
+        }
+
+        private void flush() {
+            explored.add(sinceCheck);
+            sinceCheck = 0;
+        }
+    }
+
+    private final class Subtree extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Search state;
+        private final int depth;
+
+        Subtree(Search state, int depth) {
+            this.state = state;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (depth >= splitDepth) {
+                state.search(depth, null);
+                state.flush();
+                return;
+            }
+            List<Search> forks = new ArrayList<>();
+            state.search(depth, forks);
+            state.flush();
+            List<Subtree> children = new ArrayList<>(forks.size());
+            for (Search fork : forks) {
+                children.add(new Subtree(fork, depth + 1));
+            }
+            invokeAll(children);
+        }
+    }
+
+    // Outcome of an exact solve. Without a solution no L/U-feasible partition exists (when optimal)
+    // or none was found before the search was stopped.
+    public static final class Result {
+        private final int score;
+        private final int[] assignment;
+        private final boolean optimal;
+        private final long explored;
+        private final double seconds;
+
+        Result(int score, int[] assignment, boolean optimal, long explored, double seconds) {
+            this.score = score;
+            this.assignment = assignment;
+            this.optimal = optimal;
+            this.explored = explored;
+            this.seconds = seconds;
+        }
+
+        public boolean hasSolution() {
+            return assignment != null;
+        }
+
+        public int score() {
+            return score;
+        }
+
+        // Node -> cluster array of the best partition found, or null without a solution.
+        public int[] assignment() {
+            return assignment != null ? assignment.clone() : null;
+        }
+
+        // Whether the search finished, proving score optimal.
+        public boolean isOptimal() {
+            return optimal;
+        }
+
+        public long explored() {
+            return explored;
+        }
+
+        public double seconds() {
+            return seconds;
+        }
+
+        // Relative shortfall of a heuristic score from this result, 0 when it matches.
+        public double gap(int heuristicScore) {
+            if (heuristicScore >= score) {
+                return 0.0;
+            }
+            return (score - (double) heuristicScore) / Math.max(1, Math.abs(score));
+        }
+    }
+}
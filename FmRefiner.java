@@ -0,0 +1,320 @@
+import java.util.Arrays;
+
+// Fiduccia–Mattheyses style k-way refinement. Each pass repeatedly takes the unlocked node with the
+// highest gain from a lazy max-heap, relocates it (or, when L/U forbids that, swaps it with a neighbour
+// in the target cluster), locks it, and finally rolls the pass back to its best prefix.
+public final class FmRefiner {
+    private static final int SWAP_CANDIDATES = 8;
+
+    private final Partition clusters;
+    private final SolverMetrics metrics;
+    private final Graph graph;
+    private final int[] conn;
+    private final int[] touched;
+    private final int[] clusterMarks;
+    private int mark;
+    private int[] keys;
+    private int[] targets;
+    private boolean[] relocatable;
+    private int[] lockStamps;
+    private int[] keyStamps;
+    private int stamp;
+    private int keptMoves;
+    private int passMoves;
+    private int passKept;
+
+    private long[] heap = new long[16];
+    private int heapSize;
+
+    private int[] logNodes;
+    private int[] logSources;
+    private int[] logPartners;
+
+    public FmRefiner(Partition clusters) {
+        this(clusters, SolverMetrics.of(Algorithm.FM_REFINEMENT));
+    }
+
+    FmRefiner(Partition clusters, SolverMetrics metrics) {
+        this.clusters = clusters;
+        this.metrics = metrics;
+        this.graph = clusters.graph();
+        int n = graph.nodeCount();
+        this.conn = new int[clusters.clusterCount()];
+        this.touched = new int[clusters.clusterCount()];
+        this.clusterMarks = new int[clusters.clusterCount()];
+        this.keys = new int[n];
+        this.targets = new int[n];
+        this.relocatable = new boolean[n];
+        this.lockStamps = new int[n];
+        this.keyStamps = new int[n];
+        this.logNodes = new int[n];
+        this.logSources = new int[n];
+        this.logPartners = new int[n];
+    }
+
+    // Runs passes until one fails to improve or maxPasses is reached; returns the total score gain.
+    public int refine(int maxPasses) {
+        return refine(maxPasses, SearchControl.unlimited());
+    }
+
+    // The control is consulted between passes; a pass itself always runs to completion.
+    public int refine(int maxPasses, SearchControl control) {
+        int score = clusters.score();
+        int total = 0;
+        for (int pass = 0; pass < maxPasses && !control.isStopped(); pass++) {
+            int gain = pass(null);
+            total += gain;
+            // Every move the pass tried counts as an iteration; only those left after the rollback are accepted.
+            control.checkpoint(passMoves, passKept, score + total, score + total, clusters);
+            if (gain <= 0) {
+                break;
+            }
+        }
+        control.complete(0, 0, score + total, clusters);
+        return total;
+    }
+
+    // Follows nodes appended to an editable graph (after Partition.grow()).
+    void grow() {
+        int n = graph.nodeCount();
+        if (n > keys.length) {
+            int capacity = Math.max(n, keys.length * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            relocatable = Arrays.copyOf(relocatable, capacity);
+            lockStamps = Arrays.copyOf(lockStamps, capacity);
+            keyStamps = Arrays.copyOf(keyStamps, capacity);
+            logNodes = Arrays.copyOf(logNodes, capacity);
+            logSources = Arrays.copyOf(logSources, capacity);
+            logPartners = Arrays.copyOf(logPartners, capacity);
+        }
+    }
+
+    // Nodes moved by the moves the last pass kept; a swap moves two.
+    int keptMoves() {
+        return keptMoves;
+    }
+
+    // One pass; when seeds is non-null only those nodes start in the queue.
+    int pass(int[] seeds) {
+        stamp++;
+        heapSize = 0;
+        if (seeds == null) {
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                enqueue(u);
+            }
+        } else {
+            for (int u : seeds) {
+                enqueue(u);
+            }
+        }
+
+        int moves = 0;
+        int cumulative = 0;
+        int best = 0;
+        int bestPrefix = 0;
+        // Stop a pass once it has wandered this far past its best prefix without improving.
+        int patience = Math.max(50, graph.nodeCount() / 100);
+        while (heapSize > 0 && moves - bestPrefix < patience) {
+            long top = pop();
+            int u = (int) top;
+            int key = (int) (top >> 32);
+            if (lockStamps[u] == stamp || key != keys[u] || clusters.clusterOf(u) < 0) {
+                continue;
+            }
+            if (!computeKey(u)) {
+                continue;
+            }
+            if (keys[u] != key) {
+                push(u);
+                continue;
+            }
+
+            int source = clusters.clusterOf(u);
+            int partner = -1;
+            int gain;
+            if (relocatable[u]) {
+                gain = key;
+                clusters.relocate(u, targets[u]);
+            } else {
+                partner = bestSwapPartner(u, targets[u]);
+                if (partner < 0) {
+                    metrics.rejectedBounds();
+                    lockStamps[u] = stamp;
+                    continue;
+                }
+                gain = clusters.swapDelta(u, partner);
+                clusters.swap(u, partner);
+                lockStamps[partner] = stamp;
+            }
+            lockStamps[u] = stamp;
+            logNodes[moves] = u;
+            logSources[moves] = source;
+            logPartners[moves] = partner;
+            moves++;
+
+            metrics.accepted(gain);
+            cumulative += gain;
+            if (cumulative > best) {
+                best = cumulative;
+                bestPrefix = moves;
+            }
+            requeueNeighbours(u);
+            if (partner >= 0) {
+                requeueNeighbours(partner);
+            }
+        }
+
+        for (int i = moves - 1; i >= bestPrefix; i--) {
+            if (logPartners[i] >= 0) {
+                clusters.swap(logNodes[i], logPartners[i]);
+            } else {
+                clusters.relocate(logNodes[i], logSources[i]);
+            }
+        }
+        passMoves = moves;
+        passKept = bestPrefix;
+        keptMoves = 0;
+        for (int i = 0; i < bestPrefix; i++) {
+            keptMoves += logPartners[i] >= 0 ? 2 : 1;
+        }
+        return best;
+    }
+
+    private void enqueue(int u) {
+        if (lockStamps[u] != stamp && clusters.clusterOf(u) >= 0 && computeKey(u)) {
+            push(u);
+        }
+    }
+
+    // Moving u changes each neighbour's gain by at most twice the connecting edge weight. Neighbours
+    // already keyed in this pass are re-queued under that optimistic bound and recomputed only when
+    // they reach the top of the heap, which keeps a pass close to O(m log m) on dense coarse graphs.
+    private void requeueNeighbours(int u) {
+        for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+            int x = graph.target(e);
+            if (keyStamps[x] != stamp) {
+                enqueue(x);
+            } else if (lockStamps[x] != stamp && clusters.clusterOf(x) >= 0) {
+                long bound = (long) keys[x] + 2L * Math.abs((long) graph.edgeWeight(e));
+                keys[x] = (int) Math.min(Integer.MAX_VALUE, bound);
+                push(x);
+            }
+        }
+    }
+
+    // Best relocation gain of u over its neighbouring clusters, preferring moves that respect L/U.
+    // Returns false when u has no neighbour outside its own cluster.
+    private boolean computeKey(int u) {
+        keyStamps[u] = stamp;
+        int source = clusters.clusterOf(u);
+        int count = 0;
+        mark++;
+        for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+            int c = clusters.clusterOf(graph.target(e));
+            if (c < 0) {
+                continue;
+            }
+            if (clusterMarks[c] != mark) {
+                clusterMarks[c] = mark;
+                touched[count++] = c;
+            }
+            conn[c] += graph.edgeWeight(e);
+        }
+
+        int weight = graph.weight(u);
+        boolean sourceCanShrink = clusters.weight(source) - weight >= clusters.lower();
+        int internal = conn[source];
+        int bestFeasible = Integer.MIN_VALUE;
+        int bestAny = Integer.MIN_VALUE;
+        int feasibleTarget = -1;
+        int anyTarget = -1;
+        for (int i = 0; i < count; i++) {
+            int c = touched[i];
+            int gain = conn[c] - internal;
+            conn[c] = 0;
+            if (c == source) {
+                continue;
+            }
+            if (gain > bestAny) {
+                bestAny = gain;
+                anyTarget = c;
+            }
+            if (sourceCanShrink && clusters.weight(c) + weight <= clusters.upper() && gain > bestFeasible) {
+                bestFeasible = gain;
+                feasibleTarget = c;
+            }
+        }
+        if (anyTarget < 0) {
+            return false;
+        }
+        relocatable[u] = feasibleTarget >= 0;
+        targets[u] = relocatable[u] ? feasibleTarget : anyTarget;
+        keys[u] = relocatable[u] ? bestFeasible : bestAny;
+        metrics.evaluated(keys[u]);
+        return true;
+    }
+
+    // Best-scoring unlocked neighbour of u in the target cluster whose swap with u respects L/U.
+    private int bestSwapPartner(int u, int target) {
+        int source = clusters.clusterOf(u);
+        int best = -1;
+        int bestGain = Integer.MIN_VALUE;
+        int examined = 0;
+        for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u) && examined < SWAP_CANDIDATES; e++) {
+            int v = graph.target(e);
+            if (clusters.clusterOf(v) != target || lockStamps[v] == stamp) {
+                continue;
+            }
+            examined++;
+            int weightDelta = MoveEvaluator.swapWeightDelta(graph, u, v);
+            int sourceWeight = clusters.weight(source) + weightDelta;
+            int targetWeight = clusters.weight(target) - weightDelta;
+            if (sourceWeight < clusters.lower() || sourceWeight > clusters.upper()
+                    || targetWeight < clusters.lower() || targetWeight > clusters.upper()) {
+                continue;
+            }
+            int gain = clusters.swapDelta(u, v);
+            if (gain > bestGain) {
+                bestGain = gain;
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    private void push(int u) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        long item = ((long) keys[u] << 32) | u;
+        int index = heapSize++;
+        while (index > 0 && heap[(index - 1) >>> 1] < item) {
+            heap[index] = heap[(index - 1) >>> 1];
+            index = (index - 1) >>> 1;
+        }
+        heap[index] = item;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= last) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = last;
+        return top;
+    }
+}
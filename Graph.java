@@ -0,0 +1,405 @@
+import java.util.*;
+
+// Graph with dense int node ids and symmetric CSR adjacency: node u's edges are the slice
+// [adjacencyStart(u), adjacencyEnd(u)) of the target and weight arrays. Graphs are immutable, except
+// copies made by editableCopy(), which leave spare room after every slice so nodes and edges can be
+// changed in place. An editable graph belongs to one thread and must not be solved while it is edited.
+public final class Graph {
+    private String[] names;
+    private int[] nodeWeights;
+    private int nodeCount;
+    private int[] offsets;
+    private int[] ends;
+    private int[] targets;
+    private int[] edgeWeights;
+    private long totalNodeWeight;
+    // Built on first lookup; volatile so graphs shared between solver threads publish it safely.
+    private volatile Map<String, Integer> ids;
+    // Editable copies only: the end of the room reserved for each node's slice, the used length of
+    // the target and weight arrays, and how much of that belongs to slices that have moved away.
+    private int[] limits;
+    private int used;
+    private int wasted;
+
+    private Graph(String[] names, int[] nodeWeights, int[] offsets, int[] targets, int[] edgeWeights) {
+        this.names = names;
+        this.nodeWeights = nodeWeights;
+        this.nodeCount = nodeWeights.length;
+        this.offsets = offsets;
+        this.ends = Arrays.copyOfRange(offsets, 1, nodeCount + 1);
+        this.targets = targets;
+        this.edgeWeights = edgeWeights;
+        long total = 0;
+        for (int weight : nodeWeights) {
+            total += weight;
+        }
+        this.totalNodeWeight = total;
+    }
+
+    // Key of the undirected edge a-b in fromMaps edge maps: its endpoints in name order, so an edge
+    // entered as B-A replaces A-B instead of being added to it.
+    public static List<String> edgeKey(String a, String b) {
+        return a.compareTo(b) <= 0 ? Arrays.asList(a, b) : Arrays.asList(b, a);
+    }
+
+    public static Graph fromMaps(Map<String, Integer> nodes, Map<List<String>, Integer> edges) {
+        Builder builder = new Builder(nodes.size(), edges.size());
+        Map<String, Integer> ids = new HashMap<>(nodes.size() * 2);
+        for (Map.Entry<String, Integer> entry : nodes.entrySet()) {
+            ids.put(entry.getKey(), builder.addNode(entry.getKey(), entry.getValue()));
+        }
+        for (Map.Entry<List<String>, Integer> entry : edges.entrySet()) {
+            Integer u = ids.get(entry.getKey().get(0));
+            Integer v = ids.get(entry.getKey().get(1));
+            if (u != null && v != null) {
+                builder.addEdge(u, v, entry.getValue());
+            }
+        }
+        Graph graph = builder.build();
+        graph.ids = ids;
+        return graph;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        if (limits == null) {
+            return targets.length / 2;
+        }
+        long entries = 0;
+        for (int u = 0; u < nodeCount; u++) {
+            entries += ends[u] - offsets[u];
+        }
+        return (int) (entries / 2);
+    }
+
+    public String name(int node) {
+        return names[node] != null ? names[node] : Integer.toString(node);
+    }
+
+    public int id(String name) {
+        Map<String, Integer> index = ids;
+        if (index == null) {
+            index = new HashMap<>(nodeCount * 2);
+            for (int i = 0; i < nodeCount; i++) {
+                index.put(name(i), i);
+            }
+            ids = index;
+        }
+        Integer id = index.get(name);
+        return id != null ? id : -1;
+    }
+
+    public int weight(int node) {
+        return nodeWeights[node];
+    }
+
+    public long totalWeight() {
+        return totalNodeWeight;
+    }
+
+    public int degree(int node) {
+        return ends[node] - offsets[node];
+    }
+
+    public int adjacencyStart(int node) {
+        return offsets[node];
+    }
+
+    public int adjacencyEnd(int node) {
+        return ends[node];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public int edgeWeight(int edge) {
+        return edgeWeights[edge];
+    }
+
+    // Sum of edge weights whose endpoints share a cluster; -1 marks an unassigned node.
+    public int score(int[] clusterOf) {
+        int score = 0;
+        for (int u = 0; u < nodeCount; u++) {
+            int cluster = clusterOf[u];
+            if (cluster < 0) {
+                continue;
+            }
+            for (int e = offsets[u], end = ends[u]; e < end; e++) {
+                int v = targets[e];
+                if (v > u && clusterOf[v] == cluster) {
+                    score += edgeWeights[e];
+                }
+            }
+        }
+        return score;
+    }
+
+    // Position of the u-v edge in u's slice, or -1 when there is none. O(deg(u)).
+    public int edgeIndex(int u, int v) {
+        for (int e = offsets[u], end = ends[u]; e < end; e++) {
+            if (targets[e] == v) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    // A copy whose nodes and edges can be changed in place with the methods below.
+    public Graph editableCopy() {
+        Graph copy = new Graph(Arrays.copyOf(names, nodeCount), Arrays.copyOf(nodeWeights, nodeCount),
+                Arrays.copyOf(offsets, nodeCount + 1), targets.clone(), edgeWeights.clone());
+        copy.limits = copy.ends.clone();
+        copy.used = targets.length;
+        copy.id("");
+        copy.ids = new HashMap<>(copy.ids);
+        return copy;
+    }
+
+    // Appends a node without edges and returns its id.
+    int addNode(String name, int weight) {
+        requireEditable();
+        if (nodeCount == nodeWeights.length) {
+            int capacity = Math.max(16, nodeCount * 2);
+            names = Arrays.copyOf(names, capacity);
+            nodeWeights = Arrays.copyOf(nodeWeights, capacity);
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+            ends = Arrays.copyOf(ends, capacity);
+            limits = Arrays.copyOf(limits, capacity);
+        }
+        int u = nodeCount++;
+        offsets[u] = used;
+        ends[u] = used;
+        limits[u] = used;
+        setNode(u, name, weight);
+        return u;
+    }
+
+    // Renames and reweights an existing node; a null name takes it out of id lookups.
+    void setNode(int u, String name, int weight) {
+        requireEditable();
+        Map<String, Integer> index = ids;
+        index.remove(name(u), u);
+        if (name != null) {
+            index.put(name, u);
+        }
+        names[u] = name;
+        totalNodeWeight += (long) weight - nodeWeights[u];
+        nodeWeights[u] = weight;
+    }
+
+    // Adds the undirected u-v edge or replaces its weight.
+    void putEdge(int u, int v, int weight) {
+        requireEditable();
+        if (u == v) {
+            throw new IllegalArgumentException("Self-loops are not allowed: " + u);
+        }
+        int e = edgeIndex(u, v);
+        if (e >= 0) {
+            edgeWeights[e] = weight;
+            edgeWeights[edgeIndex(v, u)] = weight;
+            return;
+        }
+        append(u, v, weight);
+        append(v, u, weight);
+    }
+
+    void removeEdge(int u, int v) {
+        requireEditable();
+        removeEntry(u, edgeIndex(u, v));
+        removeEntry(v, edgeIndex(v, u));
+    }
+
+    private void requireEditable() {
+        if (limits == null) {
+            throw new IllegalStateException("Graph is immutable; edit an editableCopy() instead");
+        }
+    }
+
+    private void append(int u, int v, int weight) {
+        if (ends[u] == limits[u]) {
+            moveToEnd(u);
+        }
+        targets[ends[u]] = v;
+        edgeWeights[ends[u]++] = weight;
+    }
+
+    // The last entry of u's slice fills the gap, so the slice stays contiguous.
+    private void removeEntry(int u, int e) {
+        if (e < 0) {
+            return;
+        }
+        int last = --ends[u];
+        targets[e] = targets[last];
+        edgeWeights[e] = edgeWeights[last];
+    }
+
+    // Gives u's full slice twice its room at the end of the arrays, compacting them first when
+    // abandoned slices take up more than the live ones, so edits stay amortized O(1) in space and time.
+    private void moveToEnd(int u) {
+        int degree = ends[u] - offsets[u];
+        int room = Math.max(4, 2 * degree);
+        if (used + room > targets.length && wasted > used / 2) {
+            compact();
+            if (ends[u] < limits[u]) {
+                return;
+            }
+        }
+        if (used + room > targets.length) {
+            int capacity = Math.max(used + room, 2 * targets.length);
+            targets = Arrays.copyOf(targets, capacity);
+            edgeWeights = Arrays.copyOf(edgeWeights, capacity);
+        }
+        System.arraycopy(targets, offsets[u], targets, used, degree);
+        System.arraycopy(edgeWeights, offsets[u], edgeWeights, used, degree);
+        wasted += limits[u] - offsets[u];
+        offsets[u] = used;
+        ends[u] = used + degree;
+        limits[u] = used + room;
+        used += room;
+    }
+
+    // Lays the slices out again in node order, each with half its degree (at least 2) spare.
+    private void compact() {
+        long total = 0;
+        for (int u = 0; u < nodeCount; u++) {
+            int degree = ends[u] - offsets[u];
+            total += degree + Math.max(2, degree / 2);
+        }
+        int[] newTargets = new int[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(total, targets.length))];
+        int[] newWeights = new int[newTargets.length];
+        int write = 0;
+        for (int u = 0; u < nodeCount; u++) {
+            int degree = ends[u] - offsets[u];
+            System.arraycopy(targets, offsets[u], newTargets, write, degree);
+            System.arraycopy(edgeWeights, offsets[u], newWeights, write, degree);
+            offsets[u] = write;
+            ends[u] = write + degree;
+            write += degree + Math.max(2, degree / 2);
+            limits[u] = write;
+        }
+        targets = newTargets;
+        edgeWeights = newWeights;
+        used = write;
+        wasted = 0;
+    }
+
+    public static final class Builder {
+        private String[] names;
+        private int[] weights;
+        private int nodeCount;
+        private int[] sources;
+        private int[] destinations;
+        private int[] values;
+        private int edgeCount;
+
+        public Builder(int expectedNodes, int expectedEdges) {
+            names = new String[Math.max(expectedNodes, 16)];
+            weights = new int[names.length];
+            sources = new int[Math.max(expectedEdges, 16)];
+            destinations = new int[sources.length];
+            values = new int[sources.length];
+        }
+
+        public int addNode(String name, int weight) {
+            if (nodeCount == weights.length) {
+                names = Arrays.copyOf(names, nodeCount * 2);
+                weights = Arrays.copyOf(weights, nodeCount * 2);
+            }
+            names[nodeCount] = name;
+            weights[nodeCount] = weight;
+            return nodeCount++;
+        }
+
+        public int addNode(int weight) {
+            return addNode(null, weight);
+        }
+
+        public int nodeCount() {
+            return nodeCount;
+        }
+
+        // Self-loops never lie between two distinct nodes, so they are dropped; parallel edges are summed.
+        public void addEdge(int u, int v, int weight) {
+            if (u < 0 || v < 0 || u >= nodeCount || v >= nodeCount) {
+                throw new IllegalArgumentException("Unknown edge endpoint: " + u + " - " + v);
+            }
+            if (u == v) {
+                return;
+            }
+            if (edgeCount == sources.length) {
+                int capacity = edgeCount * 2;
+                sources = Arrays.copyOf(sources, capacity);
+                destinations = Arrays.copyOf(destinations, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            sources[edgeCount] = u;
+            destinations[edgeCount] = v;
+            values[edgeCount] = weight;
+            edgeCount++;
+        }
+
+        public Graph build() {
+            int n = nodeCount;
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < edgeCount; i++) {
+                offsets[sources[i] + 1]++;
+                offsets[destinations[i] + 1]++;
+            }
+            for (int u = 0; u < n; u++) {
+                offsets[u + 1] += offsets[u];
+            }
+            int[] targets = new int[offsets[n]];
+            int[] edgeWeights = new int[offsets[n]];
+            int[] fill = Arrays.copyOf(offsets, n);
+            for (int i = 0; i < edgeCount; i++) {
+                int u = sources[i];
+                int v = destinations[i];
+                targets[fill[u]] = v;
+                edgeWeights[fill[u]++] = values[i];
+                targets[fill[v]] = u;
+                edgeWeights[fill[v]++] = values[i];
+            }
+            return mergeParallelEdges(Arrays.copyOf(names, n), Arrays.copyOf(weights, n), offsets, targets, edgeWeights);
+        }
+
+        private static Graph mergeParallelEdges(String[] names, int[] weights, int[] offsets, int[] targets, int[] edgeWeights) {
+            int n = weights.length;
+            int maxDegree = 0;
+            for (int u = 0; u < n; u++) {
+                maxDegree = Math.max(maxDegree, offsets[u + 1] - offsets[u]);
+            }
+            long[] row = new long[maxDegree];
+            int write = 0;
+            int[] merged = new int[n + 1];
+            for (int u = 0; u < n; u++) {
+                int start = offsets[u];
+                int length = offsets[u + 1] - start;
+                for (int i = 0; i < length; i++) {
+                    row[i] = ((long) targets[start + i] << 32) | (edgeWeights[start + i] & 0xFFFFFFFFL);
+                }
+                Arrays.sort(row, 0, length);
+                merged[u] = write;
+                for (int i = 0; i < length; i++) {
+                    int target = (int) (row[i] >>> 32);
+                    int weight = (int) row[i];
+                    if (write > merged[u] && targets[write - 1] == target) {
+                        edgeWeights[write - 1] += weight;
+                    } else {
+                        targets[write] = target;
+                        edgeWeights[write++] = weight;
+                    }
+                }
+            }
+            merged[n] = write;
+            if (write < targets.length) {
+                targets = Arrays.copyOf(targets, write);
+                edgeWeights = Arrays.copyOf(edgeWeights, write);
+            }
+            return new Graph(names, weights, merged, targets, edgeWeights);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Seeded synthetic graphs for scaling experiments: Erdős–Rényi G(n, p), planted partitions
+// (stochastic block model) and Chung–Lu power-law degree graphs. Generation streams into a Sink,
+// either a Graph.Builder or a binary graph file, so huge graphs never need to fit in memory twice.
+public final class GraphGenerator {
+    public interface Sink {
+        void node(int weight) throws IOException;
+
+        void edge(int u, int v, int weight) throws IOException;
+    }
+
+    private final SplittableRandom random;
+    private final int maxNodeWeight;
+    private final int maxEdgeWeight;
+
+    public GraphGenerator(long seed, int maxNodeWeight, int maxEdgeWeight) {
+        if (maxNodeWeight < 1 || maxEdgeWeight < 1) {
+            throw new IllegalArgumentException("Maximum weights must be positive");
+        }
+        this.random = new SplittableRandom(seed);
+        this.maxNodeWeight = maxNodeWeight;
+        this.maxEdgeWeight = maxEdgeWeight;
+    }
+
+    // Every pair is an edge independently with probability p. O(n + m) via geometric skipping.
+    public void erdosRenyi(int n, double p, Sink sink) throws IOException {
+        nodes(n, sink);
+        samplePairs(0, n, p, null, sink);
+    }
+
+    // k equal blocks; pairs inside a block are edges with probability pIn, pairs across blocks with pOut.
+    // Returns the planted block of every node, whose score is a known reference for the optimizers.
+    public int[] plantedPartition(int n, int k, double pIn, double pOut, Sink sink) throws IOException {
+        int[] blocks = new int[n];
+        for (int u = 0; u < n; u++) {
+            blocks[u] = blockOf(u, n, k);
+        }
+        nodes(n, sink);
+        samplePairs(0, n, pOut, blocks, sink);
+        for (int start = 0; start < n; ) {
+            int end = start;
+            while (end < n && blocks[end] == blocks[start]) {
+                end++;
+            }
+            samplePairs(start, end, pIn, null, sink);
+            start = end;
+        }
+        return blocks;
+    }
+
+    static int blockOf(int u, int n, int k) {
+        return (int) ((long) u * k / n);
+    }
+
+    // Chung–Lu model with expected degrees following a power law with the given exponent (> 2):
+    // m edges whose endpoints are drawn proportionally to the expected degrees. O(m log n).
+    public void powerLaw(int n, long m, double exponent, Sink sink) throws IOException {
+        if (exponent <= 2) {
+            throw new IllegalArgumentException("Power-law exponent must be greater than 2: " + exponent);
+        }
+        nodes(n, sink);
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int u = 0; u < n; u++) {
+            total += Math.pow(u + 1, -1.0 / (exponent - 1));
+            cumulative[u] = total;
+        }
+        for (long i = 0; i < m; i++) {
+            int u = sampleIndex(cumulative, random.nextDouble() * total);
+            int v = sampleIndex(cumulative, random.nextDouble() * total);
+            if (u != v) {
+                sink.edge(u, v, edgeWeight());
+            }
+        }
+    }
+
+    public static Sink into(Graph.Builder builder) {
+        return new Sink() {
+            @Override
+            public void node(int weight) {
+                builder.addNode(weight);
+            }
+
+            @Override
+            public void edge(int u, int v, int weight) {
+                builder.addEdge(u, v, weight);
+            }
+        };
+    }
+
+    public static Sink into(GraphLoader.BinaryGraphWriter writer) {
+        return new Sink() {
+            @Override
+            public void node(int weight) throws IOException {
+                writer.writeNodeWeight(weight);
+            }
+
+            @Override
+            public void edge(int u, int v, int weight) throws IOException {
+                writer.writeEdge(u, v, weight);
+            }
+        };
+    }
+
+    public Graph erdosRenyi(int n, double p) {
+        Graph.Builder builder = new Graph.Builder(n, (int) Math.min(Integer.MAX_VALUE - 8, p * n * (n - 1) / 2));
+        try {
+            erdosRenyi(n, p, into(builder));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return builder.build();
+    }
+
+    private void nodes(int n, Sink sink) throws IOException {
+        for (int u = 0; u < n; u++) {
+            sink.node(1 + random.nextInt(maxNodeWeight));
+        }
+    }
+
+    private int edgeWeight() {
+        return 1 + random.nextInt(maxEdgeWeight);
+    }
+
+    // Batagelj–Brandes skipping over the pairs (v, w), w < v, of nodes in [start, end). Pairs inside
+    // the same block are skipped when blocks is given, so the cross-block edges come out exactly once.
+    private void samplePairs(int start, int end, double p, int[] blocks, Sink sink) throws IOException {
+        if (p <= 0) {
+            return;
+        }
+        int size = end - start;
+        double logQ = p < 1 ? Math.log1p(-p) : 0;
+        // Pairs after the current one. For tiny p a skip can exceed any int or long, so it is compared
+        // against this as a double and sampling ends once it passes the last pair.
+        long remaining = (long) size * (size - 1) / 2;
+        int v = 1;
+        long w = -1;
+        while (true) {
+            double skip = p < 1 ? 1 + Math.floor(Math.log(1 - random.nextDouble()) / logQ) : 1;
+            if (skip > remaining) {
+                return;
+            }
+            remaining -= (long) skip;
+            w += (long) skip;
+            while (w >= v) {
+                w -= v;
+                v++;
+            }
+            if (blocks == null || blocks[start + v] != blocks[start + (int) w]) {
+                sink.edge(start + v, start + (int) w, edgeWeight());
+            }
+        }
+    }
+
+    private static int sampleIndex(double[] cumulative, double target) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulative[middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // java GraphGenerator --model er|sbm|powerlaw --nodes N --out FILE.bin [--seed S]
+    //   [--p P] (er)  [--k K --p-in P --p-out P] (sbm)  [--edges M --exponent X] (powerlaw)
+    //   [--max-node-weight W] [--max-edge-weight W]
+    // sbm also writes the planted blocks to FILE.bin.blocks, in the solution format of SolutionWriter,
+    // and prints their score.
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = BatchRunner.parse(args);
+        int n = Integer.parseInt(options.getOrDefault("nodes", "100000"));
+        GraphGenerator generator = new GraphGenerator(
+                Long.parseLong(options.getOrDefault("seed", "1")),
+                Integer.parseInt(options.getOrDefault("max-node-weight", "10")),
+                Integer.parseInt(options.getOrDefault("max-edge-weight", "10")));
+        String model = options.getOrDefault("model", "sbm");
+        Path out = Paths.get(options.getOrDefault("out", "graph.bin"));
+
+        try (GraphLoader.BinaryGraphWriter writer = new GraphLoader.BinaryGraphWriter(out, n)) {
+            Sink sink = into(writer);
+            switch (model) {
+                case "er":
+                    generator.erdosRenyi(n, Double.parseDouble(options.getOrDefault("p", "0.0001")), sink);
+                    break;
+                case "sbm":
+                    int k = Integer.parseInt(options.getOrDefault("k", "10"));
+                    // The planted score is summed while streaming, so the graph is never loaded.
+                    long[] score = new long[1];
+                    int[] blocks = generator.plantedPartition(n, k,
+                            Double.parseDouble(options.getOrDefault("p-in", "0.001")),
+                            Double.parseDouble(options.getOrDefault("p-out", "0.00001")), new Sink() {
+                                @Override
+                                public void node(int weight) throws IOException {
+                                    sink.node(weight);
+                                }
+
+                                @Override
+                                public void edge(int u, int v, int weight) throws IOException {
+                                    sink.edge(u, v, weight);
+                                    if (blockOf(u, n, k) == blockOf(v, n, k)) {
+                                        score[0] += weight;
+                                    }
+                                }
+                            });
+                    if (score[0] > Integer.MAX_VALUE) {
+                        throw new IllegalArgumentException("Planted score exceeds the int range: " + score[0]);
+                    }
+                    SolutionWriter.writeBinary(Paths.get(out + ".blocks"), blocks, k, (int) score[0]);
+                    System.out.println("Planted partition score: " + score[0]);
+                    break;
+                case "powerlaw":
+                    generator.powerLaw(n, Long.parseLong(options.getOrDefault("edges", String.valueOf(5L * n))),
+                            Double.parseDouble(options.getOrDefault("exponent", "2.5")), sink);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown model: " + model);
+            }
+        }
+    }
+}
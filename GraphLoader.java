@@ -0,0 +1,301 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Streams node-weight and edge-list files through memory-mapped windows straight into a Graph.Builder.
+//
+// Text: a nodes file of "id weight" lines and an edges file of "u v [weight]" lines (weight defaults
+// to 1); blank lines and lines starting with '#' are skipped. The nodes file must declare every id
+// from 0 to n - 1 exactly once, in any order.
+// Binary (little-endian): int magic, int version, int n, long m, n node weights, m (u, v, weight) ints.
+public final class GraphLoader {
+    static final int MAGIC = 0x47525048; // "GRPH"
+    static final int VERSION = 1;
+    private static final long WINDOW = 1L << 30;
+
+    private GraphLoader() {
+    }
+
+    public static Graph loadText(Path nodesFile, Path edgesFile) throws IOException {
+        int[] weights = new int[1024];
+        boolean[] declared = new boolean[weights.length];
+        int n = 0;
+        int count = 0;
+        try (MappedInput input = new MappedInput(nodesFile)) {
+            // Every node line takes at least 4 bytes, so ids below half the file size leave room for
+            // gaps in the numbering while one stray huge id cannot blow up the weight array.
+            long idLimit = Math.min(Integer.MAX_VALUE - 8, Math.max(weights.length, input.size / 2));
+            long[] record = new long[3];
+            int fields;
+            while ((fields = input.readRecord(record, 2)) > 0) {
+                if (fields < 2) {
+                    throw new IOException(nodesFile + ": node on line " + input.line() + " needs an id and a weight");
+                }
+                if (record[0] < 0 || record[0] >= idLimit) {
+                    throw new IOException(nodesFile + ": invalid node id " + record[0] + " on line " + input.line() + " (ids must be below " + idLimit + " for a file of this size)");
+                }
+                int id = (int) record[0];
+                if (id >= weights.length) {
+                    weights = Arrays.copyOf(weights, (int) Math.min(idLimit, Math.max(2L * weights.length, id + 1L)));
+                    declared = Arrays.copyOf(declared, weights.length);
+                }
+                if (declared[id]) {
+                    throw new IOException(nodesFile + ": node " + id + " on line " + input.line() + " is declared twice");
+                }
+                declared[id] = true;
+                weights[id] = (int) record[1];
+                n = Math.max(n, id + 1);
+                count++;
+            }
+        }
+        if (count < n) {
+            int missing = 0;
+            while (declared[missing]) {
+                missing++;
+            }
+            throw new IOException(nodesFile + ": node " + missing + " is missing; ids must run from 0 to " + (n - 1) + " without gaps");
+        }
+
+        long edgeEstimate = Math.min(Integer.MAX_VALUE - 8, sizeOf(edgesFile) / 12);
+        Graph.Builder builder = new Graph.Builder(n, (int) edgeEstimate);
+        for (int u = 0; u < n; u++) {
+            builder.addNode(weights[u]);
+        }
+        try (MappedInput input = new MappedInput(edgesFile)) {
+            long[] record = new long[3];
+            int fields;
+            while ((fields = input.readRecord(record, 3)) > 0) {
+                if (fields < 2) {
+                    throw new IOException(edgesFile + ": edge on line " + input.line() + " needs two endpoints");
+                }
+                addEdge(builder, record[0], record[1], fields > 2 ? record[2] : 1, n, edgesFile);
+            }
+        }
+        return builder.build();
+    }
+
+    public static Graph loadBinary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            MappedByteBuffer buffer = map(channel, position, size);
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+                throw new IOException(file + ": not a binary graph file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + ": unsupported binary graph version " + version);
+            }
+            int n = buffer.getInt();
+            long m = buffer.getLong();
+            if (n < 0 || m < 0 || m > Integer.MAX_VALUE) {
+                throw new IOException(file + ": invalid header");
+            }
+
+            Graph.Builder builder = new Graph.Builder(n, (int) m);
+            for (int u = 0; u < n; u++) {
+                if (buffer.remaining() < Integer.BYTES) {
+                    position += buffer.position();
+                    buffer = map(channel, position, size);
+                    if (buffer.remaining() < Integer.BYTES) {
+                        throw new IOException(file + ": truncated after " + u + " of " + n + " node weights");
+                    }
+                }
+                builder.addNode(buffer.getInt());
+            }
+            for (long i = 0; i < m; i++) {
+                if (buffer.remaining() < 3 * Integer.BYTES) {
+                    position += buffer.position();
+                    buffer = map(channel, position, size);
+                    if (buffer.remaining() < 3 * Integer.BYTES) {
+                        throw new IOException(file + ": truncated after " + i + " of " + m + " edges");
+                    }
+                }
+                addEdge(builder, buffer.getInt(), buffer.getInt(), buffer.getInt(), n, file);
+            }
+            return builder.build();
+        }
+    }
+
+    public static void writeBinary(Graph graph, Path file) throws IOException {
+        try (BinaryGraphWriter writer = new BinaryGraphWriter(file, graph.nodeCount())) {
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                writer.writeNodeWeight(graph.weight(u));
+            }
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+                    if (graph.target(e) > u) {
+                        writer.writeEdge(u, graph.target(e), graph.edgeWeight(e));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addEdge(Graph.Builder builder, long u, long v, long weight, int n, Path file) throws IOException {
+        if (u < 0 || v < 0 || u >= n || v >= n) {
+            throw new IOException(file + ": edge " + u + " - " + v + " refers to an undeclared node");
+        }
+        builder.addEdge((int) u, (int) v, (int) weight);
+    }
+
+    private static long sizeOf(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.size();
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    // Writes the binary format incrementally; the edge count in the header is patched on close,
+    // so callers can stream edges without knowing their number up front.
+    public static final class BinaryGraphWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private final int nodeCount;
+        private int nodesWritten;
+        private long edgesWritten;
+
+        public BinaryGraphWriter(Path file, int nodeCount) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.nodeCount = nodeCount;
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putLong(0L);
+        }
+
+        public void writeNodeWeight(int weight) throws IOException {
+            if (nodesWritten == nodeCount) {
+                throw new IllegalStateException("All " + nodeCount + " node weights were already written");
+            }
+            ensure(Integer.BYTES);
+            buffer.putInt(weight);
+            nodesWritten++;
+        }
+
+        public void writeEdge(int u, int v, int weight) throws IOException {
+            if (nodesWritten != nodeCount) {
+                throw new IllegalStateException("Node weights must be written before edges");
+            }
+            ensure(3 * Integer.BYTES);
+            buffer.putInt(u).putInt(v).putInt(weight);
+            edgesWritten++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                ByteBuffer count = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, edgesWritten);
+                channel.write(count, 3L * Integer.BYTES);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    // Byte-level tokenizer over a memory-mapped file that remaps the next window when one is exhausted.
+    private static final class MappedInput implements AutoCloseable {
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer buffer;
+        private long line = 1;
+        private long recordLine;
+
+        MappedInput(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            size = channel.size();
+            buffer = map(channel, 0, size);
+        }
+
+        // Line of the record last returned by readRecord.
+        long line() {
+            return recordLine;
+        }
+
+        private int next() throws IOException {
+            if (!buffer.hasRemaining()) {
+                windowStart += buffer.limit();
+                if (windowStart >= size) {
+                    return -1;
+                }
+                buffer = map(channel, windowStart, size);
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        // Reads up to maxFields integers from the next non-empty, non-comment line; returns the count, 0 at EOF.
+        int readRecord(long[] fields, int maxFields) throws IOException {
+            while (true) {
+                int count = 0;
+                recordLine = line;
+                int c = next();
+                if (c < 0) {
+                    return 0;
+                }
+                boolean comment = c == '#';
+                while (c >= 0 && c != '\n') {
+                    if (!comment && (c == '-' || (c >= '0' && c <= '9'))) {
+                        boolean negative = c == '-';
+                        long value = negative ? 0 : c - '0';
+                        boolean digits = !negative;
+                        while ((c = next()) >= '0' && c <= '9') {
+                            digits = true;
+                            value = value * 10 + (c - '0');
+                            // Ids and weights are ints; stopping here also keeps the long from overflowing.
+                            if (value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+                                throw new IOException("Number out of int range on line " + line);
+                            }
+                        }
+                        // A lone '-' or a sign glued to the previous number, as in "1-2".
+                        if (!digits || c == '-') {
+                            throw new IOException("Malformed number on line " + line);
+                        }
+                        if (count < maxFields) {
+                            fields[count++] = negative ? -value : value;
+                        }
+                        continue;
+                    }
+                    if (!comment && c != ' ' && c != '\t' && c != ',' && c != '\r') {
+                        throw new IOException("Unexpected character '" + (char) c + "' on line " + line);
+                    }
+                    c = next();
+                }
+                line++;
+                if (count > 0) {
+                    return count;
+                }
+                if (c < 0) {
+                    return 0;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
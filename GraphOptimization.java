@@ -1,155 +1,160 @@
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 
+// Solver algorithms and the text report shown by the GUI. Nothing here keeps state between calls:
+// graphs, configs and partitions are passed in, so concurrent solves share nothing but metrics.
 public class GraphOptimization {
-    private static Map<String, Integer> nodes = new HashMap<>(); // تخزين العقد مع الأوزان
-    private static Map<List<String>, Integer> edges = new HashMap<>(); // تخزين الحواف مع الأوزان
-    private static int L = 0; // الحد الأدنى لوزن الكلستر
-    private static int U = 0; // الحد الأقصى لوزن الكلستر
-
-    private static List<Integer> scoresGreedy = new ArrayList<>();
-    private static List<Double> timesGreedy = new ArrayList<>();
-    private static List<Integer> scoresLocal = new ArrayList<>();
-    private static List<Double> timesLocal = new ArrayList<>();
-    private static List<Integer> scoresAnnealing = new ArrayList<>();
-    private static List<Double> timesAnnealing = new ArrayList<>();
-
-    public static void setNodes(Map<String, Integer> newNodes) {
-        nodes = newNodes;
+    // Simulated annealing updates its temperature once per this many iterations.
+    private static final int COOLING_MASK = 255;
+    // Rejected proposals of sampleSwap.
+    static final long SAME_CLUSTER = -1;
+    static final long OUT_OF_BOUNDS = -2;
+    // Algorithms the GUI compares, in display order.
+    static final List<Algorithm> REPORTED_ALGORITHMS = List.of(
+            Algorithm.GREEDY, Algorithm.LOCAL_SEARCH, Algorithm.SIMULATED_ANNEALING, Algorithm.TABU_SEARCH);
+
+    // Graphs up to this size also get an exact solve, to report the heuristics' optimality gaps.
+    static final int EXACT_REPORT_NODES = ExactSolver.MAX_NODES;
+
+    public static String displayResults(Graph graph, SolverConfig config, Map<Algorithm, RunStatistics> results) {
+        return displayResults(graph, config, results, null);
     }
 
-    public static void setEdges(Map<List<String>, Integer> newEdges) {
-        edges = newEdges;
-    }
-
-    public static void setLimits(int lowerLimit, int upperLimit) {
-        L = lowerLimit;
-        U = upperLimit;
-    }
-
-    public static String runAndDisplayResults(int iterations, int runs) {
-        scoresGreedy.clear();
-        timesGreedy.clear();
-        scoresLocal.clear();
-        timesLocal.clear();
-        scoresAnnealing.clear();
-        timesAnnealing.clear();
-
+    // exact may be null; otherwise each algorithm's best and average gap to it is reported.
+    public static String displayResults(Graph graph, SolverConfig config, Map<Algorithm, RunStatistics> results, ExactSolver.Result exact) {
         StringBuilder resultDetails = new StringBuilder();
-
-        resultDetails.append("\n--- Greedy Heuristic ---\n");
-        double[] greedyResults = executeAndDisplay("Greedy Heuristic", iterations, runs, scoresGreedy, timesGreedy, resultDetails);
-
-        resultDetails.append("\n--- Local Search ---\n");
-        double[] localSearchResults = executeAndDisplay("Local Search", iterations, runs, scoresLocal, timesLocal, resultDetails);
-
-        resultDetails.append("\n--- Simulated Annealing ---\n");
-        double[] simulatedAnnealingResults = executeAndDisplay("Simulated Annealing", iterations, runs, scoresAnnealing, timesAnnealing, resultDetails);
-
-        resultDetails.append("\n--- Averaged Results over 10 executions ---\n");
-        printAveragedResults("Greedy Heuristic", greedyResults, resultDetails);
-        printAveragedResults("Local Search", localSearchResults, resultDetails);
-        printAveragedResults("Simulated Annealing", simulatedAnnealingResults, resultDetails);
-
-        resultDetails.append(displayClusterDetails());
-
-        return resultDetails.toString();
-    }
-
-    private static double[] executeAndDisplay(String algorithm, int iterations, int runs, List<Integer> scores, List<Double> times, StringBuilder resultDetails) {
-        for (int run = 0; run < runs; run++) {
-            List<List<String>> initialClusters = greedyHeuristic();
-            long startTime = System.nanoTime();
-
-            int score;
-            if (algorithm.equals("Greedy Heuristic")) {
-                score = calculateScore(initialClusters);
-            } else if (algorithm.equals("Local Search")) {
-                score = localSearch(initialClusters, iterations)[0];
-            } else if (algorithm.equals("Simulated Annealing")) {
-                score = simulatedAnnealing(initialClusters, iterations)[0];
-            } else {
-                throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        for (RunStatistics statistics : results.values()) {
+            resultDetails.append(String.format("\n--- %s ---\n", statistics.algorithm().displayName()));
+            for (int run = 0; run < statistics.runs(); run++) {
+                resultDetails.append(String.format("Run %d - Score: %d, Time: %.6f sec\n", run + 1, statistics.score(run), statistics.time(run)));
             }
-
-            long endTime = System.nanoTime();
-            double elapsedTime = (endTime - startTime) / 1_000_000_000.0;
-
-            scores.add(score);
-            times.add(elapsedTime);
-
-            resultDetails.append(String.format("Run %d - Score: %d, Time: %.6f sec\n", run + 1, score, elapsedTime));
         }
 
-        double avgScore = scores.stream().mapToInt(Integer::intValue).average().orElse(0.0);
-        double stdDevScore = calculateStdDev(scores, avgScore);
-        double avgTime = times.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        int bestScore = scores.stream().max(Integer::compare).orElse(0);
+        resultDetails.append(String.format("\n--- Averaged Results over %d executions ---\n", config.runs()));
+        for (RunStatistics statistics : results.values()) {
+            printAveragedResults(statistics, resultDetails);
+        }
 
-        return new double[]{bestScore, avgScore, stdDevScore, avgTime};
-    }
+        if (exact != null) {
+            resultDetails.append(displayOptimalityGaps(exact, results));
+        }
 
-    public static List<Integer> getScoresListForGreedy() {
-        return scoresGreedy;
-    }
+        resultDetails.append(displayClusterDetails(graph, config));
 
-    public static List<Double> getTimesListForGreedy() {
-        return timesGreedy;
+        return resultDetails.toString();
     }
 
-    public static List<Integer> getScoresListForLocal() {
-        return scoresLocal;
+    // Best score over time and exchange statistics of a finished replica exchange run.
+    public static String displayParallelTempering(ReplicaExchange exchange) {
+        StringBuilder resultDetails = new StringBuilder("\n--- Parallel Tempering ---\n");
+        for (double[] point : exchange.trace()) {
+            resultDetails.append(String.format("%.6f sec - Best Score: %.0f\n", point[0], point[1]));
+        }
+        resultDetails.append(String.format("Exchange acceptance rate: %.2f\n", exchange.exchangeAcceptanceRate()));
+        return resultDetails.toString();
     }
 
-    public static List<Double> getTimesListForLocal() {
-        return timesLocal;
+    // Time spent in each stage of a finished multilevel run.
+    public static String displayMultilevel(Multilevel multilevel, int score) {
+        StringBuilder resultDetails = new StringBuilder("\n--- Multilevel ---\n");
+        for (Map.Entry<String, Double> stage : multilevel.stageSeconds().entrySet()) {
+            resultDetails.append(String.format("%s: %.6f sec\n", stage.getKey(), stage.getValue()));
+        }
+        resultDetails.append(String.format("Score: %d\n", score));
+        return resultDetails.toString();
     }
 
-    public static List<Integer> getScoresListForAnnealing() {
-        return scoresAnnealing;
+    // Runs one algorithm on a freshly constructed partition, leaves the best partition it found
+    // in clusters and returns its score. The control can cut the run short; it also collects the
+    // best solution across runs.
+    static int optimize(Algorithm algorithm, Partition clusters, SolverConfig config, SplittableRandom random, SearchControl control) {
+        int iterations = config.iterations();
+        // The memory cap covers all concurrently running restarts.
+        ScoreCache cache = config.cacheBytes() > 0 ? new ScoreCache(config.cacheBytes() / config.parallelism()) : null;
+        int score;
+        switch (algorithm) {
+            case GREEDY:
+            case AFFINITY_GREEDY:
+                score = calculateScore(clusters);
+                control.complete(0, 0, score, clusters);
+                return score;
+            case LOCAL_SEARCH:
+                return localSearch(clusters, iterations, random, control, cache)[0];
+            case SIMULATED_ANNEALING:
+                return simulatedAnnealing(clusters, iterations, random, control, CoolingSchedule.create(config.cooling(), config.reheating()), cache)[0];
+            case TABU_SEARCH:
+                return new TabuSearch(clusters, cache).run(iterations, random, control);
+            case FM_REFINEMENT:
+                return calculateScore(clusters) + new FmRefiner(clusters).refine(Math.max(1, iterations), control);
+            case MULTILEVEL:
+                clusters.copyFrom(new Multilevel(config).run(clusters.graph(), random, control));
+                score = calculateScore(clusters);
+                control.complete(0, 0, score, clusters);
+                return score;
+            case PARALLEL_TEMPERING:
+                ReplicaExchange exchange = new ReplicaExchange(clusters, config.replicas(), config.parallelism(), random);
+                exchange.run(iterations, control);
+                clusters.copyFrom(exchange.best());
+                return exchange.bestScore();
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
     }
 
-    public static List<Double> getTimesListForAnnealing() {
-        return timesAnnealing;
+    private static void printAveragedResults(RunStatistics statistics, StringBuilder resultDetails) {
+        resultDetails.append(String.format("\n%s - Final Averaged Results:\n", statistics.algorithm().displayName()));
+        resultDetails.append(String.format("Best Score: %d\n", statistics.bestScore()));
+        resultDetails.append(String.format("Average Score: %.2f\n", statistics.averageScore()));
+        resultDetails.append(String.format("Standard Deviation: %.2f\n", statistics.stdDevScore()));
+        resultDetails.append(String.format("Average Computation Time: %.6f sec\n", statistics.averageTime()));
     }
 
-    private static void printAveragedResults(String algorithm, double[] results, StringBuilder resultDetails) {
-        resultDetails.append(String.format("\n%s - Final Averaged Results:\n", algorithm));
-        resultDetails.append(String.format("Best Score: %.0f\n", results[0]));
-        resultDetails.append(String.format("Average Score: %.2f\n", results[1]));
-        resultDetails.append(String.format("Standard Deviation: %.2f\n", results[2]));
-        resultDetails.append(String.format("Average Computation Time: %.6f sec\n", results[3]));
+    private static String displayOptimalityGaps(ExactSolver.Result exact, Map<Algorithm, RunStatistics> results) {
+        StringBuilder gapDetails = new StringBuilder("\n--- Exact Branch and Bound ---\n");
+        if (!exact.hasSolution()) {
+            gapDetails.append(exact.isOptimal() ? "No partition satisfies the cluster weight limits.\n" : "No feasible partition found before the search stopped.\n");
+            return gapDetails.toString();
+        }
+        gapDetails.append(String.format("%s: %d (%d search nodes, %.6f sec)\n",
+                exact.isOptimal() ? "Optimal Score" : "Best Score Found (not proven optimal)", exact.score(), exact.explored(), exact.seconds()));
+        for (RunStatistics statistics : results.values()) {
+            if (statistics.runs() == 0) {
+                continue;
+            }
+            double averageGap = 0;
+            for (int run = 0; run < statistics.runs(); run++) {
+                averageGap += exact.gap(statistics.score(run));
+            }
+            averageGap /= statistics.runs();
+            gapDetails.append(String.format("%s - Best Gap: %.2f%%, Average Gap: %.2f%%\n",
+                    statistics.algorithm().displayName(), 100 * exact.gap(statistics.bestScore()), 100 * averageGap));
+        }
+        return gapDetails.toString();
     }
 
-    private static String displayClusterDetails() {
+    private static String displayClusterDetails(Graph graph, SolverConfig config) {
         StringBuilder clusterDetails = new StringBuilder();
-        List<List<String>> clusters = greedyHeuristic();
+        Partition clusters = greedyHeuristic(graph, config);
 
         int totalScore = 0;
         StringBuilder totalScoreEquation = new StringBuilder();
         
         clusterDetails.append("\n‒ Resulting Clusters:\n");
-        for (int i = 0; i < clusters.size(); i++) {
-            List<String> cluster = clusters.get(i);
-            int totalWeight = calculateWeights(Collections.singletonList(cluster)).get(0);
-            clusterDetails.append(String.format("• C%d = %s, total weight = %d\n", i + 1, cluster, totalWeight));
+        for (int i = 0; i < clusters.clusterCount(); i++) {
+            List<String> cluster = new ArrayList<>();
+            for (int j = 0; j < clusters.size(i); j++) {
+                cluster.add(graph.name(clusters.member(i, j)));
+            }
+            clusterDetails.append(String.format("• C%d = %s, total weight = %d\n", i + 1, cluster, clusters.weight(i)));
 
             StringBuilder clusterEdgeDetails = new StringBuilder();
             int clusterEdgeWeightSum = 0;
-            for (int j = 0; j < cluster.size(); j++) {
-                for (int k = j + 1; k < cluster.size(); k++) {
-                    List<String> edge1 = Arrays.asList(cluster.get(j), cluster.get(k));
-                    List<String> edge2 = Arrays.asList(cluster.get(k), cluster.get(j));
-                    
-                    int edgeWeight = 0;
-                    if (edges.containsKey(edge1)) {
-                        edgeWeight = edges.get(edge1);
-                    } else if (edges.containsKey(edge2)) {
-                        edgeWeight = edges.get(edge2);
-                    }
-
-                    if (edgeWeight > 0) {
-                        clusterEdgeDetails.append(String.format("c%s%s = %d, ", cluster.get(j), cluster.get(k), edgeWeight));
+            for (int j = 0; j < clusters.size(i); j++) {
+                int u = clusters.member(i, j);
+                for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+                    int v = graph.target(e);
+                    int edgeWeight = graph.edgeWeight(e);
+                    if (v > u && clusters.clusterOf(v) == i && edgeWeight > 0) {
+                        clusterEdgeDetails.append(String.format("c%s%s = %d, ", graph.name(u), graph.name(v), edgeWeight));
                         clusterEdgeWeightSum += edgeWeight;
                         totalScoreEquation.append(edgeWeight).append(" + ");
                     }
@@ -171,130 +176,287 @@ public class GraphOptimization {
         return clusterDetails.toString();
     }
 
-    private static int calculateScore(List<List<String>> clusters) {
-        int score = 0;
-        for (List<String> cluster : clusters) {
-            for (int i = 0; i < cluster.size(); i++) {
-                for (int j = i + 1; j < cluster.size(); j++) {
-                    List<String> edge = Arrays.asList(cluster.get(i), cluster.get(j));
-                    if (edges.containsKey(edge) || edges.containsKey(Arrays.asList(cluster.get(j), cluster.get(i)))) {
-                        score += edges.getOrDefault(edge, 0) + edges.getOrDefault(Arrays.asList(cluster.get(j), cluster.get(i)), 0);
-                    }
-                }
-            }
+    private static int calculateScore(Partition clusters) {
+        return clusters.score();
+    }
+
+    // Starting partition for a restart: each greedy algorithm reports its own construction,
+    // the optimizers start from the edge-affinity construction unless the config says otherwise.
+    static Partition initialClusters(Algorithm algorithm, Graph graph, SolverConfig config) {
+        if (algorithm == Algorithm.MULTILEVEL) {
+            // The multilevel pipeline constructs its own solution on the coarsest graph.
+            return new Partition(graph, config.clusterCount(), config.lower(), config.upper());
+        }
+        if (algorithm == Algorithm.GREEDY || (algorithm != Algorithm.AFFINITY_GREEDY && !config.affinitySeed())) {
+            return greedyHeuristic(graph, config);
         }
-        return score;
+        return AffinityGreedy.construct(graph, config);
     }
 
-    private static List<List<String>> greedyHeuristic() {
-        List<List<String>> clusters = new ArrayList<>(Arrays.asList(new ArrayList<>(), new ArrayList<>()));
-        List<Integer> clusterWeights = new ArrayList<>(Arrays.asList(0, 0));
+    // Heaviest node first into the currently lightest cluster; the cluster heap makes each placement O(log k).
+    // Nodes that fit nowhere under U are still placed and the result is repaired afterwards.
+    static Partition greedyHeuristic(Graph graph, SolverConfig config) {
+        Partition clusters = new Partition(graph, config.clusterCount(), config.lower(), config.upper());
+        ClusterHeap lightest = new ClusterHeap(clusters.clusterCount());
+        for (int i = 0; i < clusters.clusterCount(); i++) {
+            lightest.update(i, 0);
+        }
 
-        List<Map.Entry<String, Integer>> sortedNodes = new ArrayList<>(nodes.entrySet());
-        sortedNodes.sort((a, b) -> b.getValue().compareTo(a.getValue()));
+        Integer[] sortedNodes = new Integer[graph.nodeCount()];
+        for (int u = 0; u < sortedNodes.length; u++) {
+            sortedNodes[u] = u;
+        }
+        Arrays.sort(sortedNodes, (a, b) -> Integer.compare(graph.weight(b), graph.weight(a)));
+
+        boolean overfilled = false;
+        for (int node : sortedNodes) {
+            int cluster = lightest.peek();
+            overfilled |= clusters.weight(cluster) + graph.weight(node) > clusters.upper();
+            clusters.relocate(node, cluster);
+            lightest.update(cluster, clusters.weight(cluster));
+        }
+        if (overfilled || !clusters.isFeasible()) {
+            repairClusters(clusters);
+        }
+        return clusters;
+    }
 
-        for (Map.Entry<String, Integer> entry : sortedNodes) {
-            String node = entry.getKey();
-            int weight = entry.getValue();
+    // Moves nodes out of clusters above U and into clusters below L until every cluster
+    // is within bounds or a full pass makes no progress.
+    static void repairClusters(Partition clusters) {
+        repairClusters(clusters, (node, target) -> { });
+    }
 
-            for (int i = 0; i < clusters.size(); i++) {
-                if (clusterWeights.get(i) + weight <= U && (clusterWeights.get(i) + weight >= L || clusters.get(i).isEmpty())) {
-                    clusters.get(i).add(node);
-                    clusterWeights.set(i, clusterWeights.get(i) + weight);
-                    break;
+    // Told about every relocation just before repairClusters makes it.
+    interface RepairListener {
+        void beforeRelocate(int node, int target);
+    }
+
+    static void repairClusters(Partition clusters, RepairListener listener) {
+        int k = clusters.clusterCount();
+        for (int pass = 0; pass <= k && !clusters.isFeasible(); pass++) {
+            boolean moved = false;
+            for (int c = 0; c < k; c++) {
+                while (clusters.weight(c) > clusters.upper() && relieveCluster(clusters, c, listener)) {
+                    moved = true;
+                }
+                while (clusters.weight(c) < clusters.lower() && fillCluster(clusters, c, listener)) {
+                    moved = true;
                 }
             }
+            if (!moved) {
+                break;
+            }
         }
-        return clusters;
     }
 
-    private static int[] localSearch(List<List<String>> initialClusters, int iterations) {
-        List<List<String>> bestClusters = initialClusters;
-        int bestScore = calculateScore(bestClusters);
+    // Moves the heaviest member of an overweight cluster that still fits into the lightest other cluster.
+    private static boolean relieveCluster(Partition clusters, int cluster, RepairListener listener) {
+        int receiver = -1;
+        for (int c = 0; c < clusters.clusterCount(); c++) {
+            if (c != cluster && (receiver < 0 || clusters.weight(c) < clusters.weight(receiver))) {
+                receiver = c;
+            }
+        }
+        if (receiver < 0) {
+            return false;
+        }
+        int node = heaviestMemberUpTo(clusters, cluster, clusters.upper() - clusters.weight(receiver));
+        if (node < 0) {
+            return false;
+        }
+        listener.beforeRelocate(node, receiver);
+        clusters.relocate(node, receiver);
+        return true;
+    }
 
-        for (int i = 0; i < iterations; i++) {
-            List<List<String>> newClusters = modifyClusters(bestClusters);
-            int newScore = calculateScore(newClusters);
+    // Pulls a member from the cluster with the most weight to spare above L.
+    private static boolean fillCluster(Partition clusters, int cluster, RepairListener listener) {
+        int donor = -1;
+        for (int c = 0; c < clusters.clusterCount(); c++) {
+            if (c != cluster && (donor < 0 || clusters.weight(c) > clusters.weight(donor))) {
+                donor = c;
+            }
+        }
+        if (donor < 0) {
+            return false;
+        }
+        int limit = Math.min(clusters.weight(donor) - clusters.lower(), clusters.upper() - clusters.weight(cluster));
+        int node = heaviestMemberUpTo(clusters, donor, limit);
+        if (node < 0) {
+            return false;
+        }
+        listener.beforeRelocate(node, cluster);
+        clusters.relocate(node, cluster);
+        return true;
+    }
 
-            if (newScore > bestScore) {
-                bestScore = newScore;
-                bestClusters = newClusters;
+    private static int heaviestMemberUpTo(Partition clusters, int cluster, int limit) {
+        Graph graph = clusters.graph();
+        int best = -1;
+        for (int i = 0; i < clusters.size(cluster); i++) {
+            int node = clusters.member(cluster, i);
+            int weight = graph.weight(node);
+            if (weight <= limit && weight > 0 && (best < 0 || weight > graph.weight(best))) {
+                best = node;
             }
         }
-        return new int[]{bestScore};
+        return best;
     }
 
-    private static int[] simulatedAnnealing(List<List<String>> initialClusters, int iterations) {
-        List<List<String>> currentClusters = initialClusters;
-        int currentScore = calculateScore(currentClusters);
-        int bestScore = currentScore;
-        double temperature = 1000;
+    static int[] localSearch(Partition clusters, int iterations, SplittableRandom random) {
+        return localSearch(clusters, iterations, random, SearchControl.unlimited(), null);
+    }
 
-        for (int i = 0; i < iterations; i++) {
-            List<List<String>> newClusters = modifyClusters(currentClusters);
-            int newScore = calculateScore(newClusters);
+    // Stops early when the control's deadline passes or stop() is called; clusters always holds the best partition.
+    // With a cache, swaps leading to an already scored partition are not evaluated again.
+    static int[] localSearch(Partition clusters, int iterations, SplittableRandom random, SearchControl control, ScoreCache cache) {
+        return localSearch(clusters, iterations, random, control, cache, SolverMetrics.of(Algorithm.LOCAL_SEARCH));
+    }
 
-            if (newScore > currentScore || Math.exp((newScore - currentScore) / temperature) > Math.random()) {
-                currentClusters = newClusters;
-                currentScore = newScore;
+    static int[] localSearch(Partition clusters, int iterations, SplittableRandom random, SearchControl control, ScoreCache cache, SolverMetrics metrics) {
+        int bestScore = calculateScore(clusters);
+        int accepted = 0;
+        int checked = 0;
+        int i = 0;
 
-                if (currentScore > bestScore) {
-                    bestScore = currentScore;
+        for (; i < iterations; i++) {
+            if ((i & SearchControl.CHECK_MASK) == 0 && i > 0) {
+                if (control.checkpoint(SearchControl.CHECK_INTERVAL, accepted, bestScore, bestScore, clusters)) {
+                    break;
                 }
+                accepted = 0;
+                checked = i;
+            }
+            long move = modifyClusters(clusters, random, metrics);
+            if (move < 0) {
+                continue;
+            }
+            int u = (int) (move >>> 32);
+            int v = (int) move;
+
+            int delta = swapDelta(clusters, u, v, bestScore, cache, metrics);
+            if (delta > 0) {
+                metrics.accepted(delta);
+                clusters.swap(u, v);
+                bestScore += delta;
+                accepted++;
             }
-            temperature *= 0.95;
         }
+        control.complete(i - checked, accepted, bestScore, clusters);
         return new int[]{bestScore};
     }
 
-    private static List<List<String>> modifyClusters(List<List<String>> clusters) {
-        Random random = new Random();
-        List<List<String>> newClusters = new ArrayList<>();
-
-        for (List<String> cluster : clusters) {
-            newClusters.add(new ArrayList<>(cluster));
-        }
-
-        int cluster1Idx = random.nextInt(newClusters.size());
-        int cluster2Idx = random.nextInt(newClusters.size());
-
-        List<String> cluster1 = newClusters.get(cluster1Idx);
-        List<String> cluster2 = newClusters.get(cluster2Idx);
+    static int[] simulatedAnnealing(Partition clusters, int iterations, SplittableRandom random) {
+        return simulatedAnnealing(clusters, iterations, random, SearchControl.unlimited(), CoolingSchedule.create("geometric", true), null);
+    }
 
-        if (!cluster1.isEmpty() && !cluster2.isEmpty() && !cluster1.equals(cluster2)) {
-            String node1 = cluster1.get(random.nextInt(cluster1.size()));
-            String node2 = cluster2.get(random.nextInt(cluster2.size()));
+    static int[] simulatedAnnealing(Partition clusters, int iterations, SplittableRandom random, SearchControl control, CoolingSchedule schedule, ScoreCache cache) {
+        return simulatedAnnealing(clusters, iterations, random, control, schedule, cache, SolverMetrics.of(Algorithm.SIMULATED_ANNEALING));
+    }
 
-            cluster1.remove(node1);
-            cluster2.remove(node2);
-            cluster1.add(node2);
-            cluster2.add(node1);
+    static int[] simulatedAnnealing(Partition clusters, int iterations, SplittableRandom random, SearchControl control, CoolingSchedule schedule, ScoreCache cache, SolverMetrics metrics) {
+        int currentScore = calculateScore(clusters);
+        BestPartition best = new BestPartition(clusters, currentScore);
+        schedule.calibrate(clusters, random);
+        double temperature = schedule.temperature();
+        int windowEvaluated = 0;
+        int windowAccepted = 0;
+        boolean improved = false;
+        int accepted = 0;
+        int checked = 0;
+        int i = 0;
+
+        for (; i < iterations; i++) {
+            if ((i & SearchControl.CHECK_MASK) == 0 && i > 0) {
+                if (control.checkpoint(SearchControl.CHECK_INTERVAL, accepted, currentScore, best.score(), best.holder(clusters, currentScore))) {
+                    break;
+                }
+                accepted = 0;
+                checked = i;
+            }
+            if ((i & COOLING_MASK) == 0 && i > 0) {
+                double progress = Math.max(i / (double) iterations, control.budgetFraction());
+                temperature = schedule.update(progress, windowEvaluated == 0 ? 0.0 : windowAccepted / (double) windowEvaluated, improved);
+                windowEvaluated = 0;
+                windowAccepted = 0;
+                improved = false;
+            }
+            long move = modifyClusters(clusters, random, metrics);
+            if (move >= 0) {
+                int u = (int) (move >>> 32);
+                int v = (int) move;
+                int delta = swapDelta(clusters, u, v, currentScore, cache, metrics);
+                windowEvaluated++;
+
+                if (delta >= 0 || Math.exp(delta / temperature) > random.nextDouble()) {
+                    metrics.accepted(delta);
+                    best.beforeMove(clusters, delta);
+                    clusters.swap(u, v);
+                    currentScore += delta;
+                    accepted++;
+                    windowAccepted++;
+                    improved |= best.afterMove(currentScore);
+                }
+            }
         }
+        best.restore(clusters, currentScore);
+        control.complete(i - checked, accepted, best.score(), clusters);
+        return new int[]{best.score()};
+    }
 
-        List<Integer> weights = calculateWeights(newClusters);
-        if (weights.stream().allMatch(weight -> weight >= L && weight <= U)) {
-            return newClusters;
+    // Score change of swapping u and v, looked up by the resulting partition's hash when a cache is given.
+    private static int swapDelta(Partition clusters, int u, int v, int currentScore, ScoreCache cache, SolverMetrics metrics) {
+        if (cache == null || !cache.active()) {
+            int delta = clusters.swapDelta(u, v);
+            metrics.evaluated(delta);
+            return delta;
         }
-        return clusters;
+        long next = clusters.hashAfterSwap(u, v);
+        int cached = cache.get(next);
+        if (cached != ScoreCache.MISSING) {
+            metrics.cached();
+            return cached - currentScore;
+        }
+        int delta = clusters.swapDelta(u, v);
+        metrics.evaluated(delta);
+        cache.put(next, currentScore + delta);
+        return delta;
     }
 
-    private static List<Integer> calculateWeights(List<List<String>> clusters) {
-        List<Integer> weights = new ArrayList<>();
-        for (List<String> cluster : clusters) {
-            int weight = 0;
-            for (String node : cluster) {
-                weight += nodes.getOrDefault(node, 0);
-            }
-            weights.add(weight);
+    static long modifyClusters(Partition clusters, SplittableRandom random) {
+        return modifyClusters(clusters, random, SolverMetrics.of(Algorithm.LOCAL_SEARCH));
+    }
+
+    // Picks a random swap between two different clusters that keeps every cluster within [L, U].
+    // Returns the pair packed as (u << 32 | v), or -1 when the proposal is rejected.
+    static long modifyClusters(Partition clusters, SplittableRandom random, SolverMetrics metrics) {
+        metrics.proposed();
+        long move = sampleSwap(clusters, random);
+        if (move == SAME_CLUSTER) {
+            metrics.rejectedSameCluster();
+        } else if (move == OUT_OF_BOUNDS) {
+            metrics.rejectedBounds();
         }
-        return weights;
+        return move < 0 ? -1 : move;
     }
 
-    private static double calculateStdDev(List<Integer> values, double mean) {
-        double variance = values.stream()
-                .mapToDouble(score -> Math.pow(score - mean, 2))
-                .average().orElse(0.0);
-        return Math.sqrt(variance);
+    // The proposal of modifyClusters without counting it, for sampling that is not part of a search;
+    // rejections are SAME_CLUSTER or OUT_OF_BOUNDS.
+    static long sampleSwap(Partition clusters, SplittableRandom random) {
+        int cluster1Idx = random.nextInt(clusters.clusterCount());
+        int cluster2Idx = random.nextInt(clusters.clusterCount());
+
+        if (clusters.size(cluster1Idx) == 0 || clusters.size(cluster2Idx) == 0 || cluster1Idx == cluster2Idx) {
+            return SAME_CLUSTER;
+        }
+        int node1 = clusters.member(cluster1Idx, random.nextInt(clusters.size(cluster1Idx)));
+        int node2 = clusters.member(cluster2Idx, random.nextInt(clusters.size(cluster2Idx)));
+
+        if (!clusters.swapKeepsFeasible(node1, node2)) {
+            return OUT_OF_BOUNDS;
+        }
+        return ((long) node1 << 32) | node2;
     }
 }
 
@@ -1,18 +1,66 @@
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import javax.swing.*;
 
 public class GraphOptimizationGUI extends JFrame {
     private JTextField nodeNameField, nodeWeightField, edgeNode1Field, edgeNode2Field, edgeWeightField;
-    private JTextField lowerLimitField, upperLimitField;
+    private JTextField lowerLimitField, upperLimitField, clusterCountField, iterationsField, timeBudgetField;
     private JTextArea resultsArea;
     private JPanel graphPanel;
+    private JProgressBar progressBar;
+    private JButton cancelButton;
+    // Control of the running calculation, null when idle; Cancel stops it.
+    private SearchControl activeControl;
     private Map<String, Integer> nodes = new HashMap<>();
     private Map<List<String>, Integer> edges = new HashMap<>();
     private Map<String, Point> nodePositions = new HashMap<>();
+    // Created by Set Limits; keeps the last partition so Re-optimize only repairs what changed. Once
+    // created it is only used on the solver executor, which applies edits and re-optimizations in order.
+    private DynamicOptimizer dynamic;
     private static final int NODE_RADIUS = 20;
+    private static final int MAX_PLACEMENT_ATTEMPTS = 10_000;
+    private static final double EXACT_SECONDS = 10;
+    // Enough for the local searches to converge on graphs of a few hundred nodes; the time budget
+    // caps the heuristics on larger ones.
+    private static final int DEFAULT_ITERATIONS = 100_000;
+    private static final double DEFAULT_TIME_BUDGET_SECONDS = 10;
+    // Progress samples kept for the live convergence chart; older ones are overwritten.
+    private static final int CONVERGENCE_SAMPLES = 1 << 16;
+    private static final BasicStroke EDGE_STROKE = new BasicStroke(2);
+    private static final BasicStroke THIN_EDGE_STROKE = new BasicStroke(1);
+    private static final Color EDGE_COLOR = new Color(150, 150, 150);
+    // Level of detail: past these sizes labels, outlines and antialiasing are dropped, since they
+    // dominate drawing time and are unreadable at that density anyway.
+    private static final int NODE_LABEL_LIMIT = 300;
+    private static final int EDGE_LABEL_LIMIT = 500;
+    private static final int DETAIL_LIMIT = 5_000;
+    // Larger graphs are drawn directly, culled to the visible area, instead of into a back-buffer.
+    private static final long MAX_BUFFER_PIXELS = 32L << 20;
+    // The whole graph in world coordinates, re-rendered only after the graph changes; panning just
+    // moves where it is drawn.
+    private BufferedImage graphImage;
+    private Point graphImageOrigin;
+    private final Point panOffset = new Point();
+    private Point dragStart;
+    // Node positions and edge segments, so overlap and crossing checks do not scan the whole graph.
+    private final SpatialGrid grid = new SpatialGrid(2 * NODE_RADIUS);
+    private SolverConfig config = SolverConfig.defaults().withIterations(DEFAULT_ITERATIONS).withRuns(10).withTimeBudget(DEFAULT_TIME_BUDGET_SECONDS);
+    // Solves run here on a snapshot of the graph, so the EDT stays responsive and edits made meanwhile
+    // only affect the next solve.
+    private final ExecutorService solverExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "solver");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public GraphOptimizationGUI() {
         setTitle("Graph Optimization");
@@ -29,17 +77,36 @@ public class GraphOptimizationGUI extends JFrame {
         inputPanel.add(createLabelRow("Node Name:", nodeNameField = new JTextField(10)));
         inputPanel.add(createLabelRow("Node Weight:", nodeWeightField = new JTextField(10)));
         inputPanel.add(createButtonRow("Add Node", e -> addNode()));
+        inputPanel.add(createButtonRow("Remove Node", e -> removeNode()));
 
         inputPanel.add(createLabelRow("Edge Node 1:", edgeNode1Field = new JTextField(10)));
         inputPanel.add(createLabelRow("Edge Node 2:", edgeNode2Field = new JTextField(10)));
         inputPanel.add(createLabelRow("Edge Weight:", edgeWeightField = new JTextField(10)));
         inputPanel.add(createButtonRow("Add Edge", e -> addEdge()));
+        inputPanel.add(createButtonRow("Remove Edge", e -> removeEdge()));
 
         inputPanel.add(createLabelRow("Lower Limit (L):", lowerLimitField = new JTextField(10)));
         inputPanel.add(createLabelRow("Upper Limit (U):", upperLimitField = new JTextField(10)));
+        inputPanel.add(createLabelRow("Clusters (k):", clusterCountField = new JTextField("2", 10)));
+        inputPanel.add(createLabelRow("Iterations:", iterationsField = new JTextField(String.valueOf(DEFAULT_ITERATIONS), 10)));
+        inputPanel.add(createLabelRow("Time Budget (s):", timeBudgetField = new JTextField(String.valueOf(DEFAULT_TIME_BUDGET_SECONDS), 10)));
         inputPanel.add(createButtonRow("Set Limits", e -> setLimits()));
 
         inputPanel.add(createButtonRow("Calculate", e -> calculateOptimization()));
+        inputPanel.add(createButtonRow("Re-optimize", e -> reoptimize()));
+
+        JPanel progressRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        progressRow.setBackground(Color.DARK_GRAY);
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setString("Idle");
+        progressBar.setPreferredSize(new Dimension(100, 20));
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> cancelOptimization());
+        progressRow.add(progressBar);
+        progressRow.add(cancelButton);
+        inputPanel.add(progressRow);
 
         add(inputPanel, BorderLayout.WEST);
 
@@ -51,6 +118,23 @@ public class GraphOptimizationGUI extends JFrame {
             }
         };
         graphPanel.setBackground(Color.WHITE);
+        MouseAdapter panner = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragStart = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragStart != null) {
+                    panOffset.translate(e.getX() - dragStart.x, e.getY() - dragStart.y);
+                    dragStart = e.getPoint();
+                    graphPanel.repaint();
+                }
+            }
+        };
+        graphPanel.addMouseListener(panner);
+        graphPanel.addMouseMotionListener(panner);
         add(graphPanel, BorderLayout.CENTER);
 
         resultsArea = new JTextArea();
@@ -68,27 +152,33 @@ public class GraphOptimizationGUI extends JFrame {
     private void addNode() {
         String nodeName = nodeNameField.getText();
         int nodeWeight = Integer.parseInt(nodeWeightField.getText());
-        nodes.put(nodeName, nodeWeight);
-
-        // توزيع العقد في مركز الرسم مع تباعد بينها
-        int x, y;
-        do {
-            x = (int) (Math.random() * (graphPanel.getWidth() - 2 * NODE_RADIUS)) + NODE_RADIUS;
-            y = (int) (Math.random() * (graphPanel.getHeight() - 2 * NODE_RADIUS)) + NODE_RADIUS;
-        } while (isOverlapping(new Point(x, y)));
 
-        nodePositions.put(nodeName, new Point(x, y));
+        // A node added again only changes its weight and keeps its place, so its edges stay where they are drawn.
+        if (!nodePositions.containsKey(nodeName)) {
+            // توزيع العقد في مركز الرسم مع تباعد بينها
+            Point position;
+            int attempts = 0;
+            do {
+                if (++attempts > MAX_PLACEMENT_ATTEMPTS) {
+                    resultsArea.append("Error: No free space left for node " + nodeName + ".\n");
+                    return;
+                }
+                int x = (int) (Math.random() * (graphPanel.getWidth() - 2 * NODE_RADIUS)) + NODE_RADIUS - panOffset.x;
+                int y = (int) (Math.random() * (graphPanel.getHeight() - 2 * NODE_RADIUS)) + NODE_RADIUS - panOffset.y;
+                position = new Point(x, y);
+            } while (isOverlapping(position));
+
+            nodePositions.put(nodeName, position);
+            grid.addPoint(position);
+        }
+        nodes.put(nodeName, nodeWeight);
+        editDynamic(optimizer -> optimizer.addNode(nodeName, nodeWeight));
         resultsArea.append("Added Node: " + nodeName + " with weight " + nodeWeight + "\n");
-        graphPanel.repaint();
+        graphChanged();
     }
 
     private boolean isOverlapping(Point position) {
-        for (Point point : nodePositions.values()) {
-            if (point.distance(position) < 2 * NODE_RADIUS) {
-                return true;
-            }
-        }
-        return false;
+        return grid.hasPointWithin(position, 2 * NODE_RADIUS);
     }
 
     private void addEdge() {
@@ -107,64 +197,220 @@ public class GraphOptimizationGUI extends JFrame {
             return;
         }
 
-        edges.put(Arrays.asList(node1, node2), weight);
+        if (edges.put(Graph.edgeKey(node1, node2), weight) == null) {
+            grid.addSegment(nodePositions.get(node1), nodePositions.get(node2));
+        }
+        if (!node1.equals(node2)) {
+            editDynamic(optimizer -> optimizer.addEdge(node1, node2, weight));
+        }
         resultsArea.append("Added Edge: " + node1 + " - " + node2 + " with weight " + weight + "\n");
-        graphPanel.repaint();
+        graphChanged();
+    }
+
+    // Also removes the node's edges.
+    private void removeNode() {
+        String nodeName = nodeNameField.getText();
+        if (!nodes.containsKey(nodeName)) {
+            resultsArea.append("Error: Unknown node " + nodeName + ".\n");
+            return;
+        }
+        Iterator<List<String>> keys = edges.keySet().iterator();
+        while (keys.hasNext()) {
+            List<String> key = keys.next();
+            if (key.contains(nodeName)) {
+                grid.removeSegment(nodePositions.get(key.get(0)), nodePositions.get(key.get(1)));
+                keys.remove();
+            }
+        }
+        grid.removePoint(nodePositions.remove(nodeName));
+        nodes.remove(nodeName);
+        editDynamic(optimizer -> optimizer.removeNode(nodeName));
+        resultsArea.append("Removed Node: " + nodeName + "\n");
+        graphChanged();
+    }
+
+    private void removeEdge() {
+        String node1 = edgeNode1Field.getText();
+        String node2 = edgeNode2Field.getText();
+        if (edges.remove(Graph.edgeKey(node1, node2)) == null) {
+            resultsArea.append("Error: Unknown edge " + node1 + " - " + node2 + ".\n");
+            return;
+        }
+        grid.removeSegment(nodePositions.get(node1), nodePositions.get(node2));
+        if (!node1.equals(node2)) {
+            editDynamic(optimizer -> optimizer.removeEdge(node1, node2));
+        }
+        resultsArea.append("Removed Edge: " + node1 + " - " + node2 + "\n");
+        graphChanged();
     }
 
     private boolean checkEdgeIntersection(String node1, String node2) {
         Point p1 = nodePositions.get(node1);
         Point p2 = nodePositions.get(node2);
 
-        for (Map.Entry<List<String>, Integer> edgeEntry : edges.entrySet()) {
-            List<String> existingEdgeNodes = edgeEntry.getKey();
-            Point p3 = nodePositions.get(existingEdgeNodes.get(0));
-            Point p4 = nodePositions.get(existingEdgeNodes.get(1));
-
-            if (linesIntersect(p1, p2, p3, p4)) {
+        for (Point[] segment : grid.segmentsNear(p1, p2)) {
+            if (linesIntersect(p1, p2, segment[0], segment[1])) {
                 return true;
             }
         }
         return false;
     }
 
+    // Proper crossing of segments p1-p2 and p3-p4: each segment's endpoints lie strictly on opposite
+    // sides of the other. Shared endpoints and parallel segments do not count.
     private boolean linesIntersect(Point p1, Point p2, Point p3, Point p4) {
-        double det = (p1.x - p2.x) * (p3.y - p4.y) - (p3.x - p4.x) * (p1.y - p2.y);
-        if (det == 0) return false; // Lines are parallel
+        long d1 = cross(p3, p4, p1);
+        long d2 = cross(p3, p4, p2);
+        long d3 = cross(p1, p2, p3);
+        long d4 = cross(p1, p2, p4);
+        return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+    }
 
-        double lambda = ((p3.y - p4.y) * (p3.x - p1.x) + (p4.x - p3.x) * (p3.y - p1.y)) / det;
-        double gamma = ((p1.y - p2.y) * (p3.x - p1.x) + (p2.x - p1.x) * (p3.y - p1.y)) / det;
+    private static long cross(Point a, Point b, Point c) {
+        return (long) (b.x - a.x) * (c.y - a.y) - (long) (b.y - a.y) * (c.x - a.x);
+    }
 
-        return (0 < lambda && lambda < 1) && (0 < gamma && gamma < 1);
+    // Reads the iteration and time budget fields into config; false, with the error shown, when they
+    // are invalid. Set Limits passes the iterations on to Re-optimize's initial solve.
+    private boolean readSearchLimits() {
+        try {
+            config = config.withIterations(Integer.parseInt(iterationsField.getText()))
+                    .withTimeBudget(Double.parseDouble(timeBudgetField.getText()));
+            return true;
+        } catch (NumberFormatException e) {
+            resultsArea.append("Error: Iterations and time budget must be numeric values.\n");
+        } catch (IllegalArgumentException e) {
+            resultsArea.append("Error: " + e.getMessage() + "\n");
+        }
+        return false;
     }
 
     private void setLimits() {
+        if (!readSearchLimits()) {
+            return;
+        }
         try {
             int lowerLimit = Integer.parseInt(lowerLimitField.getText());
             int upperLimit = Integer.parseInt(upperLimitField.getText());
-            GraphOptimization.setLimits(lowerLimit, upperLimit);
-            // تحتاج إلى تنفيذ setLimits هنا
-            resultsArea.append("Limits set: Lower Limit = " + lowerLimit + ", Upper Limit = " + upperLimit + "\n");
+            int clusterCount = Integer.parseInt(clusterCountField.getText());
+            config = config.withLimits(lowerLimit, upperLimit).withClusterCount(clusterCount);
+            // Filled here, before any executor task can see it.
+            DynamicOptimizer optimizer = new DynamicOptimizer(config, Algorithm.FM_REFINEMENT);
+            for (Map.Entry<String, Integer> node : nodes.entrySet()) {
+                optimizer.addNode(node.getKey(), node.getValue());
+            }
+            for (Map.Entry<List<String>, Integer> edge : edges.entrySet()) {
+                if (!edge.getKey().get(0).equals(edge.getKey().get(1))) {
+                    optimizer.addEdge(edge.getKey().get(0), edge.getKey().get(1), edge.getValue());
+                }
+            }
+            dynamic = optimizer;
+            resultsArea.append("Limits set: Lower Limit = " + lowerLimit + ", Upper Limit = " + upperLimit + ", Clusters = " + clusterCount + "\n");
         } catch (NumberFormatException e) {
             resultsArea.append("Error: Limits must be numeric values.\n");
+        } catch (IllegalArgumentException e) {
+            resultsArea.append("Error: " + e.getMessage() + "\n");
         }
     }
 
+    // Runs the reported algorithms one after another on the solver executor. The bar advances per
+    // algorithm and shows the best score so far, a chart window plots best and current score live,
+    // and Cancel stops the search, keeping finished runs. Small graphs are then solved exactly, so the
+    // report can show how far each heuristic is from the optimum.
     private void calculateOptimization() {
-        GraphOptimization.setNodes(nodes);
-        GraphOptimization.setEdges(edges);
+        if (activeControl != null) {
+            resultsArea.append("Error: A calculation is already running.\n");
+            return;
+        }
+        if (!readSearchLimits()) {
+            return;
+        }
+        // Calculate solves an immutable snapshot, so editing can go on meanwhile; Re-optimize is the
+        // incremental path.
+        ClusteringSolver solver = new ClusteringSolver(Graph.fromMaps(nodes, edges), config.withSeed(System.nanoTime()));
+        List<Algorithm> algorithms = GraphOptimization.REPORTED_ALGORITHMS;
+        ConvergenceBuffer samples = new ConvergenceBuffer(CONVERGENCE_SAMPLES);
+        SimpleChart convergenceChart = new SimpleChart(samples);
+        SolverListener listener = event -> {
+            samples.onProgress(event);
+            SwingUtilities.invokeLater(() -> {
+                convergenceChart.repaint();
+                if (activeControl != null) {
+                    progressBar.setString("Best: " + event.bestScore());
+                }
+            });
+        };
+        SearchControl control = new SearchControl(0, listener, 50);
+        boolean exact = solver.graph().nodeCount() <= GraphOptimization.EXACT_REPORT_NODES;
+        ExactSolver.Result[] exactResult = new ExactSolver.Result[1];
+        JFrame convergenceFrame = new JFrame("Convergence");
+        convergenceFrame.add(convergenceChart);
+        convergenceFrame.setSize(600, 400);
+        convergenceFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        convergenceFrame.setVisible(true);
+        activeControl = control;
+        progressBar.setMaximum(algorithms.size() + (exact ? 1 : 0));
+        progressBar.setValue(0);
+        progressBar.setString("Calculating");
+        cancelButton.setEnabled(true);
+        resultsArea.append("Calculating...\n");
+
+        CompletableFuture.supplyAsync(() -> {
+            // The time budget covers the heuristics; the exact solve has a deadline of its own.
+            SearchControl heuristics = control.child(solver.config().timeBudgetSeconds());
+            Map<Algorithm, RunStatistics> results = solver.compare(algorithms, heuristics, (algorithm, result) -> {
+                int done = algorithms.indexOf(algorithm) + 1;
+                SwingUtilities.invokeLater(() -> progressBar.setValue(done));
+            });
+            if (exact && !control.isStopped()) {
+                // A child keeps the chart on one time axis, and Cancel stops it through the parent.
+                exactResult[0] = solver.solveExact(control.child(EXACT_SECONDS));
+            }
+            return results;
+        }, solverExecutor).whenComplete((results, error) -> SwingUtilities.invokeLater(() -> {
+            activeControl = null;
+            cancelButton.setEnabled(false);
+            progressBar.setString(control.isStopped() ? "Cancelled" : "Done");
+            if (error != null) {
+                resultsArea.append("Error: " + (error.getCause() != null ? error.getCause() : error) + "\n");
+                return;
+            }
+            if (control.isStopped()) {
+                resultsArea.append("Calculation cancelled; showing the runs that finished.\n");
+            }
+            showResults(solver, results, exactResult[0]);
+        }));
+    }
 
-        String result = GraphOptimization.runAndDisplayResults(10, 10);
-        resultsArea.append(result + "\n");
+    private void cancelOptimization() {
+        if (activeControl != null) {
+            activeControl.stop();
+            progressBar.setString("Cancelling");
+        }
+    }
 
-        int[] scoresGreedy = GraphOptimization.getScoresListForGreedy().stream().mapToInt(Integer::intValue).toArray();
-        double[] timesGreedy = GraphOptimization.getTimesListForGreedy().stream().mapToDouble(Double::doubleValue).toArray();
-        int[] scoresLocal = GraphOptimization.getScoresListForLocal().stream().mapToInt(Integer::intValue).toArray();
-        double[] timesLocal = GraphOptimization.getTimesListForLocal().stream().mapToDouble(Double::doubleValue).toArray();
-        int[] scoresAnnealing = GraphOptimization.getScoresListForAnnealing().stream().mapToInt(Integer::intValue).toArray();
-        double[] timesAnnealing = GraphOptimization.getTimesListForAnnealing().stream().mapToDouble(Double::doubleValue).toArray();
+    // exact is null when the graph was too large for an exact solve or the calculation was cancelled first.
+    private void showResults(ClusteringSolver solver, Map<Algorithm, RunStatistics> results, ExactSolver.Result exact) {
+        String result = GraphOptimization.displayResults(solver.graph(), solver.config(), results, exact);
+        resultsArea.append(result + "\n");
 
-        SimpleChart chart = new SimpleChart(scoresGreedy, timesGreedy, scoresLocal, timesLocal, scoresAnnealing, timesAnnealing);
+        RunStatistics greedy = results.get(Algorithm.GREEDY);
+        RunStatistics local = results.get(Algorithm.LOCAL_SEARCH);
+        RunStatistics annealing = results.get(Algorithm.SIMULATED_ANNEALING);
+        RunStatistics tabu = results.get(Algorithm.TABU_SEARCH);
+        if (greedy == null || local == null || annealing == null || tabu == null) {
+            return;
+        }
+        int[] scoresGreedy = greedy.scores();
+        double[] timesGreedy = greedy.times();
+        int[] scoresLocal = local.scores();
+        double[] timesLocal = local.times();
+        int[] scoresAnnealing = annealing.scores();
+        double[] timesAnnealing = annealing.times();
+        int[] scoresTabu = tabu.scores();
+        double[] timesTabu = tabu.times();
+
+        SimpleChart chart = new SimpleChart(scoresGreedy, timesGreedy, scoresLocal, timesLocal, scoresAnnealing, timesAnnealing, scoresTabu, timesTabu);
         JFrame chartFrame = new JFrame("Results Chart");
         chartFrame.add(chart);
         chartFrame.setSize(600, 400);
@@ -173,6 +419,58 @@ public class GraphOptimizationGUI extends JFrame {
     }
 
 
+    private void editDynamic(Consumer<DynamicOptimizer> edit) {
+        DynamicOptimizer optimizer = dynamic;
+        if (optimizer != null) {
+            solverExecutor.execute(() -> edit.accept(optimizer));
+        }
+    }
+
+    // Applies the nodes and edges added since the last solve to the previous best partition on the
+    // solver executor; Cancel ends the refinement early and keeps what it has so far.
+    private void reoptimize() {
+        if (dynamic == null) {
+            resultsArea.append("Error: Set limits before re-optimizing.\n");
+            return;
+        }
+        if (activeControl != null) {
+            resultsArea.append("Error: A calculation is already running.\n");
+            return;
+        }
+        if (!readSearchLimits()) {
+            return;
+        }
+        DynamicOptimizer optimizer = dynamic;
+        SearchControl control = new SearchControl(config.timeBudgetSeconds(), null, 50);
+        activeControl = control;
+        progressBar.setIndeterminate(true);
+        progressBar.setString("Re-optimizing");
+        cancelButton.setEnabled(true);
+
+        CompletableFuture.supplyAsync(() -> {
+            int changes = optimizer.pendingChanges();
+            long startTime = System.nanoTime();
+            Partition clusters = optimizer.reoptimize(control);
+            double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+            StringBuilder summary = new StringBuilder(String.format("Re-optimized %d changed nodes in %.6f sec - Score: %d, Moved: %d, Feasible: %b\nCluster weights:",
+                    changes, seconds, optimizer.score(), optimizer.movedNodes(), clusters.isFeasible()));
+            for (int c = 0; c < clusters.clusterCount(); c++) {
+                summary.append(c == 0 ? " " : ", ").append(clusters.weight(c));
+            }
+            return summary.append('\n').toString();
+        }, solverExecutor).whenComplete((summary, error) -> SwingUtilities.invokeLater(() -> {
+            activeControl = null;
+            cancelButton.setEnabled(false);
+            progressBar.setIndeterminate(false);
+            progressBar.setString(control.isStopped() ? "Cancelled" : "Done");
+            if (error != null) {
+                resultsArea.append("Error: " + (error.getCause() != null ? error.getCause() : error) + "\n");
+                return;
+            }
+            resultsArea.append(summary);
+        }));
+    }
+
     private JPanel createLabelRow(String labelText, JTextField textField) {
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
         panel.setBackground(Color.DARK_GRAY);
@@ -192,38 +490,94 @@ public class GraphOptimizationGUI extends JFrame {
         return panel;
     }
 
+    private void graphChanged() {
+        graphImage = null;
+        graphPanel.repaint();
+    }
+
     private void drawGraph(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (graphImage == null && !nodePositions.isEmpty()) {
+            renderGraphImage();
+        }
+        if (graphImage != null) {
+            g.drawImage(graphImage, graphImageOrigin.x + panOffset.x, graphImageOrigin.y + panOffset.y, null);
+            return;
+        }
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.translate(panOffset.x, panOffset.y);
+        paintGraph(g2, new Rectangle(-panOffset.x, -panOffset.y, graphPanel.getWidth(), graphPanel.getHeight()));
+        g2.dispose();
+    }
+
+    // Renders every node and edge once into an image covering their bounding box plus room for labels.
+    private void renderGraphImage() {
+        int margin = 2 * NODE_RADIUS + 100;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (Point p : nodePositions.values()) {
+            minX = Math.min(minX, p.x);
+            minY = Math.min(minY, p.y);
+            maxX = Math.max(maxX, p.x);
+            maxY = Math.max(maxY, p.y);
+        }
+        long width = (long) maxX - minX + 2L * margin;
+        long height = (long) maxY - minY + 2L * margin;
+        if (width * height > MAX_BUFFER_PIXELS) {
+            return;
+        }
+        graphImage = new BufferedImage((int) width, (int) height, BufferedImage.TYPE_INT_ARGB);
+        graphImageOrigin = new Point(minX - margin, minY - margin);
+        Graphics2D g2 = graphImage.createGraphics();
+        g2.translate(-graphImageOrigin.x, -graphImageOrigin.y);
+        paintGraph(g2, null);
+        g2.dispose();
+    }
+
+    // Draws the graph in world coordinates; with a view rectangle, elements outside it are skipped.
+    private void paintGraph(Graphics2D g2, Rectangle view) {
+        if (edges.size() <= DETAIL_LIMIT && nodes.size() <= DETAIL_LIMIT) {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        }
+        Rectangle visible = view != null ? new Rectangle(view.x - 2 * NODE_RADIUS - 100, view.y - 2 * NODE_RADIUS, view.width + 4 * NODE_RADIUS + 100, view.height + 4 * NODE_RADIUS) : null;
+        boolean edgeLabels = edges.size() <= EDGE_LABEL_LIMIT;
 
         // رسم الحواف
-        g2.setColor(new Color(150, 150, 150)); // لون رمادي أفتح
+        g2.setColor(EDGE_COLOR); // لون رمادي أفتح
+        g2.setStroke(edges.size() <= DETAIL_LIMIT ? EDGE_STROKE : THIN_EDGE_STROKE); // سمك الخط
         for (Map.Entry<List<String>, Integer> edgeEntry : edges.entrySet()) {
             List<String> edgeNodes = edgeEntry.getKey();
             Point p1 = nodePositions.get(edgeNodes.get(0));
             Point p2 = nodePositions.get(edgeNodes.get(1));
 
-            if (p1 != null && p2 != null) {
-                g2.setStroke(new BasicStroke(2)); // سمك الخط
+            if (p1 != null && p2 != null && (visible == null || visible.intersectsLine(p1.x, p1.y, p2.x, p2.y))) {
                 g2.drawLine(p1.x, p1.y, p2.x, p2.y);
-                String weightLabel = String.valueOf(edgeEntry.getValue());
-                g2.drawString(weightLabel, (p1.x + p2.x) / 2, (p1.y + p2.y) / 2);
+                if (edgeLabels) {
+                    String weightLabel = String.valueOf(edgeEntry.getValue());
+                    g2.drawString(weightLabel, (p1.x + p2.x) / 2, (p1.y + p2.y) / 2);
+                }
             }
         }
 
         // رسم العقد
+        boolean nodeLabels = nodes.size() <= NODE_LABEL_LIMIT;
+        boolean outlines = nodes.size() <= DETAIL_LIMIT;
         g2.setColor(Color.BLUE);
         for (Map.Entry<String, Integer> nodeEntry : nodes.entrySet()) {
             String nodeName = nodeEntry.getKey();
             int nodeWeight = nodeEntry.getValue();
             Point p = nodePositions.get(nodeName);
 
-            if (p != null) {
+            if (p != null && (visible == null || visible.contains(p))) {
                 g2.fillOval(p.x - NODE_RADIUS, p.y - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS); // حجم الدائرة
-                g2.setColor(Color.BLACK);
-                g2.drawOval(p.x - NODE_RADIUS, p.y - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS);
-                g2.drawString(nodeName + " (" + nodeWeight + ")", p.x - 10, p.y - 30); // موضع النص أعلى العقدة
-                g2.setColor(Color.BLUE); // العودة إلى اللون الأزرق للعقد
+                if (outlines || nodeLabels) {
+                    g2.setColor(Color.BLACK);
+                    if (outlines) {
+                        g2.drawOval(p.x - NODE_RADIUS, p.y - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS);
+                    }
+                    if (nodeLabels) {
+                        g2.drawString(nodeName + " (" + nodeWeight + ")", p.x - 10, p.y - 30); // موضع النص أعلى العقدة
+                    }
+                    g2.setColor(Color.BLUE); // العودة إلى اللون الأزرق للعقد
+                }
             }
         }
     }
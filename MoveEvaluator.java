@@ -0,0 +1,75 @@
+// Exact score and weight deltas of single moves, computed from the adjacency of the moved nodes only.
+public final class MoveEvaluator {
+    private MoveEvaluator() {
+    }
+
+    // Score change when u moves from its cluster to target. O(deg(u)).
+    public static int relocateDelta(Graph graph, int[] clusterOf, int u, int target) {
+        int source = clusterOf[u];
+        if (source == target) {
+            return 0;
+        }
+        int delta = 0;
+        for (int e = graph.adjacencyStart(u), end = graph.adjacencyEnd(u); e < end; e++) {
+            int cluster = clusterOf[graph.target(e)];
+            if (cluster < 0) {
+                continue;
+            }
+            if (cluster == target) {
+                delta += graph.edgeWeight(e);
+            } else if (cluster == source) {
+                delta -= graph.edgeWeight(e);
+            }
+        }
+        return delta;
+    }
+
+    // Score change when assigned nodes u and v exchange clusters. O(deg(u) + deg(v)).
+    public static int swapDelta(Graph graph, int[] clusterOf, int u, int v) {
+        int a = clusterOf[u];
+        int b = clusterOf[v];
+        if (a == b) {
+            return 0;
+        }
+        int delta = 0;
+        int between = 0;
+        for (int e = graph.adjacencyStart(u), end = graph.adjacencyEnd(u); e < end; e++) {
+            int w = graph.target(e);
+            if (w == v) {
+                between = graph.edgeWeight(e);
+            }
+            int cluster = clusterOf[w];
+            if (cluster < 0) {
+                continue;
+            }
+            if (cluster == b) {
+                delta += graph.edgeWeight(e);
+            } else if (cluster == a) {
+                delta -= graph.edgeWeight(e);
+            }
+        }
+        for (int e = graph.adjacencyStart(v), end = graph.adjacencyEnd(v); e < end; e++) {
+            int cluster = clusterOf[graph.target(e)];
+            if (cluster < 0) {
+                continue;
+            }
+            if (cluster == a) {
+                delta += graph.edgeWeight(e);
+            } else if (cluster == b) {
+                delta -= graph.edgeWeight(e);
+            }
+        }
+        // The u-v edge was counted as gained on both sides but stays cut after the exchange.
+        return delta - 2 * between;
+    }
+
+    // Weight change of u's cluster when u and v exchange clusters; v's cluster changes by the negation.
+    public static int swapWeightDelta(Graph graph, int u, int v) {
+        return graph.weight(v) - graph.weight(u);
+    }
+
+    // Weight change of the target cluster when u relocates; u's old cluster changes by the negation.
+    public static int relocateWeightDelta(Graph graph, int u) {
+        return graph.weight(u);
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Runs independent restarts of one algorithm on a ForkJoinPool. Every restart gets its own
+// SplittableRandom split from the configured seed and its own Partition, so a fixed seed
+// reproduces the same scores regardless of parallelism or scheduling, unless a time budget or an
+// early stop cuts runs short.
+public final class MultiStartRunner {
+    private final Graph graph;
+    private final SolverConfig config;
+
+    public MultiStartRunner(Graph graph, SolverConfig config) {
+        this.graph = graph;
+        this.config = config;
+    }
+
+    public RunStatistics run(Algorithm algorithm) {
+        return run(algorithm, new SearchControl(config.timeBudgetSeconds(), null, 200));
+    }
+
+    // The control bounds the whole search: restarts that have not started when it stops are skipped
+    // and running ones return their best solution at their next checkpoint. Progress events and the
+    // best solution so far are available through the control while this call is running.
+    public RunStatistics run(Algorithm algorithm, SearchControl control) {
+        int runs = config.runs();
+        int[] scores = new int[runs];
+        double[] times = new double[runs];
+        boolean[] completed = new boolean[runs];
+        int[][] best = new int[1][];
+        int[] bestRun = {-1};
+
+        SplittableRandom root = new SplittableRandom(config.seed());
+        SplittableRandom[] randoms = new SplittableRandom[runs];
+        for (int run = 0; run < runs; run++) {
+            randoms[run] = root.split();
+        }
+
+        Runnable[] tasks = new Runnable[runs];
+        for (int run = 0; run < runs; run++) {
+            int index = run;
+            tasks[run] = () -> {
+                if (control.isStopped()) {
+                    return;
+                }
+                Partition clusters = GraphOptimization.initialClusters(algorithm, graph, config);
+                long startTime = System.nanoTime();
+                scores[index] = GraphOptimization.optimize(algorithm, clusters, config, randoms[index], control);
+                long elapsed = System.nanoTime() - startTime;
+                times[index] = elapsed / 1_000_000_000.0;
+                SolverMetrics.of(algorithm).completedRun(elapsed);
+                completed[index] = true;
+                // Ties go to the lowest restart index so the reported partition is reproducible.
+                synchronized (best) {
+                    int other = bestRun[0];
+                    if (other < 0 || scores[index] > scores[other] || (scores[index] == scores[other] && index < other)) {
+                        bestRun[0] = index;
+                        best[0] = clusters.assignment();
+                    }
+                }
+            };
+        }
+
+        if (config.parallelism() == 1 || algorithm == Algorithm.PARALLEL_TEMPERING) {
+            // Sequential restarts run on the calling thread, so solves submitted to a caller's
+            // executor do not each spin up a pool. Parallel tempering already spreads each restart
+            // over config.parallelism() threads, so its restarts never run side by side.
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(config.parallelism());
+            try {
+                ForkJoinTask<?>[] submitted = new ForkJoinTask<?>[runs];
+                for (int run = 0; run < runs; run++) {
+                    submitted[run] = pool.submit(tasks[run]);
+                }
+                for (ForkJoinTask<?> task : submitted) {
+                    task.join();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        int done = 0;
+        for (int run = 0; run < runs; run++) {
+            if (completed[run]) {
+                scores[done] = scores[run];
+                times[done++] = times[run];
+            }
+        }
+        return new RunStatistics(algorithm, Arrays.copyOf(scores, done), Arrays.copyOf(times, done), best[0]);
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.*;
+
+// Multilevel pipeline: coarsen by heavy-edge matching, solve the coarsest graph with the existing
+// heuristics, then project back level by level with FM refinement. Each stage is timed.
+public final class Multilevel {
+    private static final double MIN_REDUCTION = 0.9;
+    private static final int REFINEMENT_PASSES = 10;
+    // The coarsest graph gets at most this many local search sweeps, so that an unlimited or
+    // deadline-driven iteration count still leaves time to refine the finer levels.
+    private static final int COARSE_SWEEPS = 100;
+
+    private final SolverConfig config;
+    private final Map<String, Double> stageSeconds = new LinkedHashMap<>();
+
+    public Multilevel(SolverConfig config) {
+        this.config = config;
+    }
+
+    public Partition run(Graph graph, SplittableRandom random) {
+        return run(graph, random, SearchControl.unlimited());
+    }
+
+    // Once the control stops, the remaining levels are only projected, not refined.
+    public Partition run(Graph graph, SplittableRandom random, SearchControl control) {
+        SearchControl levelControl = control.detached();
+        stageSeconds.clear();
+        List<Graph> levels = new ArrayList<>();
+        List<int[]> maps = new ArrayList<>();
+        levels.add(graph);
+
+        long start = System.nanoTime();
+        int coarsestSize = Math.max(200, 20 * config.clusterCount());
+        // Coarse nodes heavier than half of U could not be balanced any more, so matching stops there.
+        int maxNodeWeight = Math.max(1, config.upper() / 2);
+        Graph current = graph;
+        while (current.nodeCount() > coarsestSize) {
+            int[] map = new int[current.nodeCount()];
+            Graph coarse = coarsen(current, map, maxNodeWeight, random);
+            if (coarse.nodeCount() > MIN_REDUCTION * current.nodeCount()) {
+                break;
+            }
+            levels.add(coarse);
+            maps.add(map);
+            current = coarse;
+        }
+        record("Coarsening (" + (levels.size() - 1) + " levels)", start);
+
+        start = System.nanoTime();
+        Partition partition = AffinityGreedy.construct(current, config);
+        int coarseIterations = (int) Math.min(config.iterations(), (long) COARSE_SWEEPS * current.nodeCount());
+        GraphOptimization.localSearch(partition, coarseIterations, random, levelControl, null);
+        new FmRefiner(partition).refine(REFINEMENT_PASSES, levelControl);
+        record("Initial solution (" + current.nodeCount() + " nodes)", start);
+
+        for (int level = levels.size() - 2; level >= 0; level--) {
+            start = System.nanoTime();
+            Graph fine = levels.get(level);
+            int[] map = maps.get(level);
+            Partition projected = new Partition(fine, config.clusterCount(), config.lower(), config.upper());
+            for (int u = 0; u < fine.nodeCount(); u++) {
+                projected.relocate(u, partition.clusterOf(map[u]));
+            }
+            new FmRefiner(projected).refine(REFINEMENT_PASSES, levelControl);
+            partition = projected;
+            record("Refinement level " + level + " (" + fine.nodeCount() + " nodes)", start);
+        }
+
+        if (!partition.isFeasible()) {
+            start = System.nanoTime();
+            GraphOptimization.repairClusters(partition);
+            record("Repair", start);
+        }
+        return partition;
+    }
+
+    public Map<String, Double> stageSeconds() {
+        return Collections.unmodifiableMap(stageSeconds);
+    }
+
+    // Heavy-edge matching in random order; matched pairs become one coarse node with the summed weight.
+    static Graph coarsen(Graph graph, int[] map, int maxNodeWeight, SplittableRandom random) {
+        int n = graph.nodeCount();
+        int[] order = new int[n];
+        for (int u = 0; u < n; u++) {
+            order[u] = u;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        Arrays.fill(map, -1);
+        Graph.Builder builder = new Graph.Builder(n / 2 + 1, graph.edgeCount());
+        for (int u : order) {
+            if (map[u] >= 0) {
+                continue;
+            }
+            int partner = -1;
+            int heaviest = 0;
+            for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+                int v = graph.target(e);
+                if (map[v] < 0 && graph.edgeWeight(e) > heaviest && graph.weight(u) + graph.weight(v) <= maxNodeWeight) {
+                    heaviest = graph.edgeWeight(e);
+                    partner = v;
+                }
+            }
+            int coarse = builder.addNode(graph.weight(u) + (partner >= 0 ? graph.weight(partner) : 0));
+            map[u] = coarse;
+            if (partner >= 0) {
+                map[partner] = coarse;
+            }
+        }
+
+        // Edges inside a coarse node become self-loops and are dropped; parallel edges are summed.
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+                int v = graph.target(e);
+                if (v > u) {
+                    builder.addEdge(map[u], map[v], graph.edgeWeight(e));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private void record(String stage, long start) {
+        stageSeconds.put(stage, (System.nanoTime() - start) / 1_000_000_000.0);
+    }
+}
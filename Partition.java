@@ -0,0 +1,269 @@
+import java.util.Arrays;
+
+// Mutable assignment of graph nodes to k clusters with O(1) moves, undo and L/U validation. A 64-bit
+// Zobrist hash of the assignment (the XOR of one key per assigned node and cluster) is maintained
+// with every move, so equal assignments reached by different move sequences hash alike.
+public final class Partition {
+    private final Graph graph;
+    private final int lower;
+    private final int upper;
+    private int[] clusterOf;
+    private int[] positions;
+    private final int[][] members;
+    private final int[] sizes;
+    private final int[] weights;
+    private int outOfBounds;
+    private long hash;
+
+    private int lastNode = -1;
+    private int lastPartner = -1;
+    private int lastSource;
+
+    public Partition(Graph graph, int clusterCount, int lower, int upper) {
+        this.graph = graph;
+        this.lower = lower;
+        this.upper = upper;
+        this.clusterOf = new int[graph.nodeCount()];
+        this.positions = new int[graph.nodeCount()];
+        this.members = new int[clusterCount][];
+        this.sizes = new int[clusterCount];
+        this.weights = new int[clusterCount];
+        Arrays.fill(clusterOf, -1);
+        int capacity = graph.nodeCount() / Math.max(clusterCount, 1) + 1;
+        for (int c = 0; c < clusterCount; c++) {
+            members[c] = new int[capacity];
+        }
+        outOfBounds = inBounds(0) ? 0 : clusterCount;
+    }
+
+    public Graph graph() {
+        return graph;
+    }
+
+    public int clusterCount() {
+        return sizes.length;
+    }
+
+    public int lower() {
+        return lower;
+    }
+
+    public int upper() {
+        return upper;
+    }
+
+    public int clusterOf(int node) {
+        return clusterOf[node];
+    }
+
+    public int size(int cluster) {
+        return sizes[cluster];
+    }
+
+    public int member(int cluster, int index) {
+        return members[cluster][index];
+    }
+
+    public int weight(int cluster) {
+        return weights[cluster];
+    }
+
+    public boolean withinBounds(int cluster) {
+        return inBounds(weights[cluster]);
+    }
+
+    // True when every cluster weight lies within [L, U].
+    public boolean isFeasible() {
+        return outOfBounds == 0;
+    }
+
+    public long hash() {
+        return hash;
+    }
+
+    // Hash the assignment would have after u and v exchange clusters; both must be assigned.
+    public long hashAfterSwap(int u, int v) {
+        int a = clusterOf[u];
+        int b = clusterOf[v];
+        return hash ^ zobrist(u, a) ^ zobrist(u, b) ^ zobrist(v, b) ^ zobrist(v, a);
+    }
+
+    public long hashAfterRelocate(int u, int target) {
+        int source = clusterOf[u];
+        return hash ^ (source >= 0 ? zobrist(u, source) : 0) ^ (target >= 0 ? zobrist(u, target) : 0);
+    }
+
+    // Key of "node u is in cluster c": a SplitMix64 finalizer over the pair, so no n x k table of
+    // random keys has to be stored.
+    static long zobrist(int u, int c) {
+        long z = u * 0x9E3779B97F4A7C15L + (c + 1) * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public int score() {
+        return graph.score(clusterOf);
+    }
+
+    public int swapDelta(int u, int v) {
+        return MoveEvaluator.swapDelta(graph, clusterOf, u, v);
+    }
+
+    public int relocateDelta(int u, int target) {
+        return MoveEvaluator.relocateDelta(graph, clusterOf, u, target);
+    }
+
+    // Whether every cluster would be within [L, U] after u and v exchange clusters.
+    public boolean swapKeepsFeasible(int u, int v) {
+        int a = clusterOf[u];
+        int b = clusterOf[v];
+        int weightDelta = MoveEvaluator.swapWeightDelta(graph, u, v);
+        return outOfBoundsAfter(a, weightDelta, b, -weightDelta) == 0;
+    }
+
+    // Whether every cluster would be within [L, U] after u moves to target.
+    public boolean relocateKeepsFeasible(int u, int target) {
+        int weight = MoveEvaluator.relocateWeightDelta(graph, u);
+        return outOfBoundsAfter(clusterOf[u], -weight, target, weight) == 0;
+    }
+
+    public void relocate(int u, int target) {
+        int source = clusterOf[u];
+        if (source == target) {
+            return;
+        }
+        if (source >= 0) {
+            remove(u, source);
+        }
+        if (target >= 0) {
+            add(u, target);
+        }
+        lastNode = u;
+        lastPartner = -1;
+        lastSource = source;
+    }
+
+    // Both nodes must be assigned.
+    public void swap(int u, int v) {
+        int a = clusterOf[u];
+        int b = clusterOf[v];
+        if (a == b) {
+            return;
+        }
+        // Exchange the two member slots so neither cluster array changes size.
+        int positionU = positions[u];
+        int positionV = positions[v];
+        members[a][positionU] = v;
+        members[b][positionV] = u;
+        positions[u] = positionV;
+        positions[v] = positionU;
+        clusterOf[u] = b;
+        clusterOf[v] = a;
+        hash ^= zobrist(u, a) ^ zobrist(u, b) ^ zobrist(v, b) ^ zobrist(v, a);
+        int weightDelta = MoveEvaluator.swapWeightDelta(graph, u, v);
+        changeWeight(a, weightDelta);
+        changeWeight(b, -weightDelta);
+        lastNode = u;
+        lastPartner = v;
+    }
+
+    // Reverts the most recent relocate or swap.
+    public void undo() {
+        int node = lastNode;
+        if (node < 0) {
+            return;
+        }
+        if (lastPartner >= 0) {
+            swap(node, lastPartner);
+        } else {
+            relocate(node, lastSource);
+        }
+        lastNode = -1;
+    }
+
+    public void copyFrom(Partition other) {
+        if (other.graph != graph || other.sizes.length != sizes.length) {
+            throw new IllegalArgumentException("Partitions belong to different graphs or cluster counts");
+        }
+        System.arraycopy(other.clusterOf, 0, clusterOf, 0, graph.nodeCount());
+        System.arraycopy(other.positions, 0, positions, 0, graph.nodeCount());
+        for (int c = 0; c < sizes.length; c++) {
+            if (members[c].length < other.sizes[c]) {
+                members[c] = new int[other.members[c].length];
+            }
+            System.arraycopy(other.members[c], 0, members[c], 0, other.sizes[c]);
+        }
+        System.arraycopy(other.sizes, 0, sizes, 0, sizes.length);
+        System.arraycopy(other.weights, 0, weights, 0, weights.length);
+        outOfBounds = other.outOfBounds;
+        hash = other.hash;
+        lastNode = -1;
+    }
+
+    public int[] assignment() {
+        return Arrays.copyOf(clusterOf, graph.nodeCount());
+    }
+
+    // Makes room for nodes appended to an editable graph since construction; they start unassigned.
+    void grow() {
+        int n = graph.nodeCount();
+        if (n > clusterOf.length) {
+            int capacity = Math.max(n, clusterOf.length * 2);
+            int old = clusterOf.length;
+            clusterOf = Arrays.copyOf(clusterOf, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            Arrays.fill(clusterOf, old, capacity, -1);
+        }
+    }
+
+    private void add(int u, int cluster) {
+        int size = sizes[cluster];
+        if (size == members[cluster].length) {
+            members[cluster] = Arrays.copyOf(members[cluster], size * 2 + 1);
+        }
+        members[cluster][size] = u;
+        positions[u] = size;
+        sizes[cluster] = size + 1;
+        clusterOf[u] = cluster;
+        hash ^= zobrist(u, cluster);
+        changeWeight(cluster, graph.weight(u));
+    }
+
+    // O(1) removal: the last member takes the removed node's slot.
+    private void remove(int u, int cluster) {
+        int last = members[cluster][--sizes[cluster]];
+        members[cluster][positions[u]] = last;
+        positions[last] = positions[u];
+        clusterOf[u] = -1;
+        hash ^= zobrist(u, cluster);
+        changeWeight(cluster, -graph.weight(u));
+    }
+
+    private void changeWeight(int cluster, int delta) {
+        boolean wasInBounds = inBounds(weights[cluster]);
+        weights[cluster] += delta;
+        boolean isInBounds = inBounds(weights[cluster]);
+        if (wasInBounds != isInBounds) {
+            outOfBounds += isInBounds ? -1 : 1;
+        }
+    }
+
+    private int outOfBoundsAfter(int a, int deltaA, int b, int deltaB) {
+        int count = outOfBounds;
+        if (a == b) {
+            return count;
+        }
+        if (a >= 0) {
+            count += (inBounds(weights[a] + deltaA) ? 0 : 1) - (inBounds(weights[a]) ? 0 : 1);
+        }
+        if (b >= 0) {
+            count += (inBounds(weights[b] + deltaB) ? 0 : 1) - (inBounds(weights[b]) ? 0 : 1);
+        }
+        return count;
+    }
+
+    private boolean inBounds(int weight) {
+        return weight >= lower && weight <= upper;
+    }
+}
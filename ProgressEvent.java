@@ -0,0 +1,52 @@
+// Snapshot published to a SolverListener. Counts cover every run sharing the SearchControl.
+public final class ProgressEvent {
+    private final double elapsedSeconds;
+    private final long iterations;
+    private final double iterationsPerSecond;
+    private final double acceptanceRate;
+    private final int currentScore;
+    private final int bestScore;
+    private final int[] bestAssignment;
+
+    ProgressEvent(double elapsedSeconds, long iterations, double iterationsPerSecond, double acceptanceRate, int currentScore, int bestScore, int[] bestAssignment) {
+        this.elapsedSeconds = elapsedSeconds;
+        this.iterations = iterations;
+        this.iterationsPerSecond = iterationsPerSecond;
+        this.acceptanceRate = acceptanceRate;
+        this.currentScore = currentScore;
+        this.bestScore = bestScore;
+        this.bestAssignment = bestAssignment;
+    }
+
+    // Seconds since the search started; for a child control, since its parent started.
+    public double elapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public long iterations() {
+        return iterations;
+    }
+
+    public double iterationsPerSecond() {
+        return iterationsPerSecond;
+    }
+
+    // Accepted moves over iterations since the search started.
+    public double acceptanceRate() {
+        return acceptanceRate;
+    }
+
+    // Score of the run that published the event.
+    public int currentScore() {
+        return currentScore;
+    }
+
+    public int bestScore() {
+        return bestScore;
+    }
+
+    // Node -> cluster array of the best solution so far, or null before any run reported one.
+    public int[] bestAssignment() {
+        return bestAssignment != null ? bestAssignment.clone() : null;
+    }
+}
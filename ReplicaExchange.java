@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Parallel tempering: one annealing chain per rung of a geometric temperature ladder, each
+// sweeping on its own worker thread, with Metropolis state exchanges between neighbouring rungs.
+public final class ReplicaExchange {
+    private static final int SWEEP_LENGTH = 1_000;
+    private static final SolverMetrics METRICS = SolverMetrics.of(Algorithm.PARALLEL_TEMPERING);
+
+    private final Replica[] replicas;
+    private final int parallelism;
+    private final long startTime = System.nanoTime();
+    private final List<double[]> trace = new ArrayList<>();
+    private final Partition best;
+    private int bestScore;
+    private long exchangeAttempts;
+    private long exchangesAccepted;
+
+    public ReplicaExchange(Partition initial, int replicaCount, int parallelism, SplittableRandom random) {
+        if (replicaCount < 1) {
+            throw new IllegalArgumentException("Replica count must be positive: " + replicaCount);
+        }
+        this.parallelism = parallelism;
+        this.replicas = new Replica[replicaCount];
+        double hottest = Math.max(1.0, 2.0 * meanEdgeWeight(initial.graph()));
+        double coldest = hottest / 1000.0;
+        int score = initial.score();
+        for (int i = 0; i < replicaCount; i++) {
+            double fraction = replicaCount == 1 ? 0.0 : i / (double) (replicaCount - 1);
+            Partition partition = new Partition(initial.graph(), initial.clusterCount(), initial.lower(), initial.upper());
+            partition.copyFrom(initial);
+            replicas[i] = new Replica(partition, score, coldest * Math.pow(hottest / coldest, fraction), random.split());
+        }
+        this.best = new Partition(initial.graph(), initial.clusterCount(), initial.lower(), initial.upper());
+        this.best.copyFrom(initial);
+        this.bestScore = score;
+        trace.add(new double[]{0.0, score});
+    }
+
+    // Runs the ladder until every replica has performed the given number of steps.
+    public int run(int iterations) {
+        return run(iterations, SearchControl.unlimited());
+    }
+
+    // Stops after the sweep round in which the control's deadline passes or stop() is called.
+    public int run(int iterations, SearchControl control) {
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, replicas.length));
+        try {
+            ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[replicas.length];
+            for (int done = 0, round = 0; done < iterations; done += SWEEP_LENGTH, round++) {
+                int steps = Math.min(SWEEP_LENGTH, iterations - done);
+                for (int i = 0; i < replicas.length; i++) {
+                    Replica replica = replicas[i];
+                    tasks[i] = pool.submit(() -> replica.sweep(steps));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
+                recordBest();
+                exchange(round & 1);
+                int accepted = 0;
+                for (Replica replica : replicas) {
+                    accepted += replica.accepted;
+                    replica.accepted = 0;
+                }
+                if (control.checkpoint(steps * replicas.length, accepted, replicas[0].score, bestScore, best)) {
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        control.complete(0, 0, bestScore, best);
+        return bestScore;
+    }
+
+    public int bestScore() {
+        return bestScore;
+    }
+
+    public Partition best() {
+        return best;
+    }
+
+    // (seconds since start, best score) pairs, one per improvement of the global best.
+    public List<double[]> trace() {
+        return trace;
+    }
+
+    public double exchangeAcceptanceRate() {
+        return exchangeAttempts == 0 ? 0.0 : exchangesAccepted / (double) exchangeAttempts;
+    }
+
+    private void recordBest() {
+        for (Replica replica : replicas) {
+            // Exchanges hand the walking partitions to other replicas, so each best is saved first.
+            replica.best.save(replica.partition);
+            if (replica.best.score() > bestScore) {
+                bestScore = replica.best.score();
+                best.copyFrom(replica.best.holder(replica.partition, replica.score));
+                trace.add(new double[]{(System.nanoTime() - startTime) / 1_000_000_000.0, bestScore});
+            }
+        }
+    }
+
+    // Alternates between even and odd rung pairs so every pair gets a chance to exchange.
+    private void exchange(int parity) {
+        for (int i = parity; i + 1 < replicas.length; i += 2) {
+            Replica colder = replicas[i];
+            Replica hotter = replicas[i + 1];
+            double exponent = (1.0 / colder.temperature - 1.0 / hotter.temperature) * (hotter.score - colder.score);
+            exchangeAttempts++;
+            if (exponent >= 0 || Math.exp(exponent) > colder.random.nextDouble()) {
+                Partition partition = colder.partition;
+                colder.partition = hotter.partition;
+                hotter.partition = partition;
+                int score = colder.score;
+                colder.score = hotter.score;
+                hotter.score = score;
+                exchangesAccepted++;
+            }
+        }
+    }
+
+    private static double meanEdgeWeight(Graph graph) {
+        long sum = 0;
+        int count = 0;
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+                sum += Math.abs(graph.edgeWeight(e));
+                count++;
+            }
+        }
+        return count == 0 ? 1.0 : sum / (double) count;
+    }
+
+    private static final class Replica {
+        private Partition partition;
+        private int score;
+        private final double temperature;
+        private final SplittableRandom random;
+        private final BestPartition best;
+        private int accepted;
+
+        Replica(Partition partition, int score, double temperature, SplittableRandom random) {
+            this.partition = partition;
+            this.score = score;
+            this.temperature = temperature;
+            this.random = random;
+            this.best = new BestPartition(partition, score);
+        }
+
+        void sweep(int steps) {
+            for (int i = 0; i < steps; i++) {
+                long move = GraphOptimization.modifyClusters(partition, random, METRICS);
+                if (move < 0) {
+                    continue;
+                }
+                int u = (int) (move >>> 32);
+                int v = (int) move;
+                int delta = partition.swapDelta(u, v);
+                METRICS.evaluated(delta);
+
+                if (delta >= 0 || Math.exp(delta / temperature) > random.nextDouble()) {
+                    METRICS.accepted(delta);
+                    best.beforeMove(partition, delta);
+                    partition.swap(u, v);
+                    score += delta;
+                    accepted++;
+                    best.afterMove(score);
+                }
+            }
+        }
+    }
+}
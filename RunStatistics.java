@@ -0,0 +1,78 @@
+// Per-restart scores and times of one algorithm, merged in restart order.
+public final class RunStatistics {
+    private final Algorithm algorithm;
+    private final int[] scores;
+    private final double[] times;
+    private final int[] bestAssignment;
+
+    public RunStatistics(Algorithm algorithm, int[] scores, double[] times, int[] bestAssignment) {
+        this.algorithm = algorithm;
+        this.scores = scores.clone();
+        this.times = times.clone();
+        this.bestAssignment = bestAssignment != null ? bestAssignment.clone() : null;
+    }
+
+    public Algorithm algorithm() {
+        return algorithm;
+    }
+
+    public int runs() {
+        return scores.length;
+    }
+
+    public int score(int run) {
+        return scores[run];
+    }
+
+    public double time(int run) {
+        return times[run];
+    }
+
+    public int[] scores() {
+        return scores.clone();
+    }
+
+    public double[] times() {
+        return times.clone();
+    }
+
+    // Node -> cluster array of the best restart, or null when no restart completed.
+    public int[] bestAssignment() {
+        return bestAssignment != null ? bestAssignment.clone() : null;
+    }
+
+    public int bestScore() {
+        int best = 0;
+        for (int i = 0; i < scores.length; i++) {
+            if (i == 0 || scores[i] > best) {
+                best = scores[i];
+            }
+        }
+        return best;
+    }
+
+    public double averageScore() {
+        double sum = 0;
+        for (int score : scores) {
+            sum += score;
+        }
+        return scores.length == 0 ? 0.0 : sum / scores.length;
+    }
+
+    public double stdDevScore() {
+        double mean = averageScore();
+        double variance = 0;
+        for (int score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        return scores.length == 0 ? 0.0 : Math.sqrt(variance / scores.length);
+    }
+
+    public double averageTime() {
+        double sum = 0;
+        for (double time : times) {
+            sum += time;
+        }
+        return times.length == 0 ? 0.0 : sum / times.length;
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.Arrays;
+
+// Bounded map from partition hash to score: open addressing over primitive arrays sized from a
+// byte budget, so it never grows past the configured memory. A key probes a window of PROBES slots
+// after its home slot; when the window is full the entry in the home slot is evicted. Lookups only
+// pay off when partitions actually repeat (small graphs, converged searches), so a window of
+// lookups with a low hit rate pauses the cache for a while before it tries again. The cache
+// belongs to a single search thread.
+public final class ScoreCache {
+    static final int MISSING = Integer.MIN_VALUE;
+    private static final int PROBES = 8;
+    private static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int WINDOW = 4096;
+    private static final int MIN_WINDOW_HITS = WINDOW / 10;
+    private static final int PAUSE = 16 * WINDOW;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final int mask;
+    private int size;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int windowLookups;
+    private int windowHits;
+    private int paused;
+
+    // Uses the largest power-of-two slot count that fits maxBytes; at least 16 slots.
+    public ScoreCache(long maxBytes) {
+        long slots = Long.highestOneBit(Math.max(16, Math.min(1L << 30, maxBytes / ENTRY_BYTES)));
+        this.keys = new long[(int) slots];
+        this.scores = new int[(int) slots];
+        this.mask = (int) slots - 1;
+    }
+
+    // False while the cache is paused for a low hit rate; callers then evaluate without it.
+    public boolean active() {
+        if (paused > 0) {
+            paused--;
+            return false;
+        }
+        return true;
+    }
+
+    // Score stored for the hash, or MISSING.
+    public int get(long hash) {
+        if (++windowLookups == WINDOW) {
+            if (windowHits < MIN_WINDOW_HITS) {
+                paused = PAUSE;
+            }
+            windowLookups = 0;
+            windowHits = 0;
+        }
+        long key = hash == 0 ? 1 : hash;
+        int home = (int) (key ^ (key >>> 32)) & mask;
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (home + i) & mask;
+            if (keys[slot] == key) {
+                hits++;
+                windowHits++;
+                return scores[slot];
+            }
+            if (keys[slot] == 0) {
+                break;
+            }
+        }
+        misses++;
+        return MISSING;
+    }
+
+    // Stores the score and returns true when the hash was already present.
+    public boolean put(long hash, int score) {
+        long key = hash == 0 ? 1 : hash;
+        int home = (int) (key ^ (key >>> 32)) & mask;
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (home + i) & mask;
+            if (keys[slot] == key) {
+                scores[slot] = score;
+                return true;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                scores[slot] = score;
+                size++;
+                return false;
+            }
+        }
+        keys[home] = key;
+        scores[home] = score;
+        evictions++;
+        return false;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+}
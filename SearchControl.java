@@ -0,0 +1,201 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Shared by every run of one search: a wall-clock deadline, an early-stop flag, the best solution
+// found so far and rate-limited progress events. Optimizers call checkpoint() every CHECK_INTERVAL
+// iterations, which keeps the cost of the deadline check and reporting off the inner loop. Searches
+// run one after another under one control each take a child() with a share of its budget.
+public final class SearchControl {
+    static final int CHECK_INTERVAL = 1024;
+    static final int CHECK_MASK = CHECK_INTERVAL - 1;
+
+    private final long startTime = System.nanoTime();
+    private final SearchControl parent;
+    // Detached controls leave counting, best solutions and events to the parent.
+    private final boolean detached;
+    private final long originTime;
+    private final boolean budgeted;
+    private final long deadline;
+    private final long budgetNanos;
+    private final SolverListener listener;
+    private final long reportIntervalNanos;
+    private final AtomicLong nextReport;
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private volatile boolean stopped;
+    private int bestScore = Integer.MIN_VALUE;
+    private int[] bestAssignment;
+
+    // A budget of 0 means no deadline; listener may be null.
+    public SearchControl(double budgetSeconds, SolverListener listener, long reportIntervalMillis) {
+        if (budgetSeconds < 0) {
+            throw new IllegalArgumentException("Time budget must not be negative: " + budgetSeconds);
+        }
+        if (reportIntervalMillis < 1) {
+            throw new IllegalArgumentException("Report interval must be positive: " + reportIntervalMillis);
+        }
+        this.parent = null;
+        this.detached = false;
+        this.originTime = startTime;
+        this.budgeted = budgetSeconds > 0;
+        this.budgetNanos = (long) (budgetSeconds * 1_000_000_000L);
+        this.deadline = startTime + budgetNanos;
+        this.listener = listener;
+        this.reportIntervalNanos = reportIntervalMillis * 1_000_000L;
+        this.nextReport = new AtomicLong(startTime + reportIntervalNanos);
+    }
+
+    private SearchControl(SearchControl parent) {
+        this.parent = parent;
+        this.detached = true;
+        this.originTime = parent.originTime;
+        this.budgeted = false;
+        this.deadline = startTime;
+        this.budgetNanos = 0;
+        this.listener = null;
+        this.reportIntervalNanos = Long.MAX_VALUE;
+        this.nextReport = new AtomicLong(Long.MAX_VALUE);
+    }
+
+    private SearchControl(SearchControl parent, double budgetSeconds) {
+        if (budgetSeconds < 0) {
+            throw new IllegalArgumentException("Time budget must not be negative: " + budgetSeconds);
+        }
+        this.parent = parent;
+        this.detached = false;
+        this.originTime = parent.originTime;
+        this.budgeted = budgetSeconds > 0;
+        this.budgetNanos = (long) (budgetSeconds * 1_000_000_000L);
+        this.deadline = startTime + budgetNanos;
+        this.listener = parent.listener;
+        this.reportIntervalNanos = parent.reportIntervalNanos;
+        this.nextReport = new AtomicLong(startTime + reportIntervalNanos);
+    }
+
+    public static SearchControl unlimited() {
+        return new SearchControl(0, null, 200);
+    }
+
+    // Asks every run to return its best solution at its next checkpoint.
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped || (parent != null && parent.isStopped()) || (budgeted && System.nanoTime() - deadline >= 0);
+    }
+
+    // Shares this control's deadline, stop flag and iteration counts but keeps best solutions and
+    // events to itself, for searches on derived graphs such as multilevel coarse levels.
+    SearchControl detached() {
+        return new SearchControl(this);
+    }
+
+    // A control for one of several searches run under this one: it stops when this one does or after
+    // its own budget (0 for none), keeps its own best solution and counts, and publishes to this
+    // control's listener with times measured from this control's start, so a chart fed by the events
+    // of consecutive children sees one time axis.
+    public SearchControl child(double budgetSeconds) {
+        return new SearchControl(this, budgetSeconds);
+    }
+
+    // A child with an equal share of the budget left for this and the remaining searches, so an early
+    // search cannot use up the deadline; a search that finishes early leaves its time to the rest.
+    public SearchControl share(int remainingSearches) {
+        if (remainingSearches < 1) {
+            throw new IllegalArgumentException("At least one search must remain: " + remainingSearches);
+        }
+        if (!budgeted) {
+            return child(0);
+        }
+        long remaining = Math.max(1, deadline - System.nanoTime());
+        return child(remaining / (double) remainingSearches / 1_000_000_000.0);
+    }
+
+    // Fraction of the time budget used so far, 0 without a budget.
+    public double budgetFraction() {
+        if (detached || (!budgeted && parent != null)) {
+            return parent.budgetFraction();
+        }
+        return budgeted ? Math.min(1.0, (System.nanoTime() - startTime) / (double) budgetNanos) : 0.0;
+    }
+
+    public double elapsedSeconds() {
+        return (System.nanoTime() - startTime) / 1_000_000_000.0;
+    }
+
+    public synchronized int bestScore() {
+        return bestScore;
+    }
+
+    // Best solution offered so far, or null before the first report or completed run.
+    public synchronized int[] bestAssignment() {
+        return bestAssignment != null ? bestAssignment.clone() : null;
+    }
+
+    // Records work done since the previous checkpoint of the calling run. At most once per reporting
+    // interval the run's best partition is snapshotted and an event published. Returns true when the
+    // run should stop.
+    boolean checkpoint(int iterationsDone, int acceptedDone, int currentScore, int runBestScore, Partition runBest) {
+        count(iterationsDone, acceptedDone);
+        if (detached) {
+            return isStopped();
+        }
+        long now = System.nanoTime();
+        long next = nextReport.get();
+        if (now - next >= 0 && nextReport.compareAndSet(next, now + reportIntervalNanos)) {
+            offer(runBestScore, runBest);
+            publish(currentScore);
+        }
+        return isStopped();
+    }
+
+    // Final result of a run; always considered for the best solution.
+    void complete(int iterationsDone, int acceptedDone, int score, Partition partition) {
+        count(iterationsDone, acceptedDone);
+        if (!detached) {
+            offer(score, partition);
+        }
+    }
+
+    private void count(int iterationsDone, int acceptedDone) {
+        if (detached) {
+            parent.count(iterationsDone, acceptedDone);
+        } else {
+            iterations.add(iterationsDone);
+            accepted.add(acceptedDone);
+        }
+    }
+
+    private void offer(int score, Partition partition) {
+        synchronized (this) {
+            if (score <= bestScore) {
+                return;
+            }
+        }
+        int[] assignment = partition.assignment();
+        synchronized (this) {
+            if (score > bestScore) {
+                bestScore = score;
+                bestAssignment = assignment;
+            }
+        }
+    }
+
+    private void publish(int currentScore) {
+        if (listener == null) {
+            return;
+        }
+        long done = iterations.sum();
+        int best;
+        int[] assignment;
+        synchronized (this) {
+            best = bestScore;
+            assignment = bestAssignment;
+        }
+        long now = System.nanoTime();
+        double rate = now > startTime ? done / ((now - startTime) / 1_000_000_000.0) : 0.0;
+        listener.onProgress(new ProgressEvent((now - originTime) / 1_000_000_000.0, done, rate,
+                done == 0 ? 0.0 : accepted.sum() / (double) done, currentScore, best, assignment));
+    }
+}
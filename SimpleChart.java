@@ -1,18 +1,51 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.Arrays;
 
+// Either the per-run scores and times of the compared algorithms, or a live convergence plot of best
+// and current score over time read from a ConvergenceBuffer. Scores and times each get their own
+// axis, and all scaling is computed once per data set (per repaint only in live mode, from a fixed
+// number of buckets) rather than per series on every repaint.
 class SimpleChart extends JPanel {
-    private int[] scoresGreedy, scoresLocal, scoresAnnealing;
-    private double[] timesGreedy, timesLocal, timesAnnealing;
+    private static final int MARGIN = 50;
+    private static final Color CURRENT_COLOR = new Color(230, 120, 120);
 
-    public SimpleChart(int[] scoresGreedy, double[] timesGreedy, int[] scoresLocal, double[] timesLocal, int[] scoresAnnealing, double[] timesAnnealing) {
+    private int[] scoresGreedy, scoresLocal, scoresAnnealing, scoresTabu;
+    private double[] timesGreedy, timesLocal, timesAnnealing, timesTabu;
+    private int minScore, maxScore;
+    private double maxTime;
+    private int runs;
+    private ConvergenceBuffer samples;
+
+    public SimpleChart(int[] scoresGreedy, double[] timesGreedy, int[] scoresLocal, double[] timesLocal, int[] scoresAnnealing, double[] timesAnnealing, int[] scoresTabu, double[] timesTabu) {
         this.scoresGreedy = scoresGreedy;
         this.timesGreedy = timesGreedy;
         this.scoresLocal = scoresLocal;
         this.timesLocal = timesLocal;
         this.scoresAnnealing = scoresAnnealing;
         this.timesAnnealing = timesAnnealing;
+        this.scoresTabu = scoresTabu;
+        this.timesTabu = timesTabu;
+
+        minScore = 0;
+        maxScore = 1;
+        maxTime = 1e-9;
+        for (int[] scores : new int[][]{scoresGreedy, scoresLocal, scoresAnnealing, scoresTabu}) {
+            for (int score : scores) {
+                minScore = Math.min(minScore, score);
+                maxScore = Math.max(maxScore, score);
+            }
+            runs = Math.max(runs, scores.length);
+        }
+        for (double[] times : new double[][]{timesGreedy, timesLocal, timesAnnealing, timesTabu}) {
+            for (double time : times) {
+                maxTime = Math.max(maxTime, time);
+            }
+        }
+    }
+
+    // Live mode: repaint() redraws from the samples recorded so far.
+    public SimpleChart(ConvergenceBuffer samples) {
+        this.samples = samples;
     }
 
     @Override
@@ -23,43 +56,115 @@ class SimpleChart extends JPanel {
 
         int width = getWidth();
         int height = getHeight();
-        g2.drawLine(50, height - 50, width - 50, height - 50);
-        g2.drawLine(50, height - 50, 50, 50);
+        g2.setColor(Color.BLACK);
+        g2.drawLine(MARGIN, height - MARGIN, width - MARGIN, height - MARGIN);
+        g2.drawLine(MARGIN, height - MARGIN, MARGIN, MARGIN);
+
+        if (samples != null) {
+            paintConvergence(g2);
+            return;
+        }
+        g2.drawLine(width - MARGIN, height - MARGIN, width - MARGIN, MARGIN);
 
         plotData(g2, scoresGreedy, timesGreedy, Color.BLUE);
         plotData(g2, scoresLocal, timesLocal, Color.RED);
         plotData(g2, scoresAnnealing, timesAnnealing, Color.GREEN);
+        plotData(g2, scoresTabu, timesTabu, Color.ORANGE);
 
         g2.setColor(Color.BLACK);
         g2.drawString("Run", width / 2, height - 20);
-        g2.drawString("Score/Time", 20, height / 2);
+        g2.drawString("Score", 5, MARGIN - 10);
+        g2.drawString(String.valueOf(maxScore), 5, MARGIN);
+        g2.drawString(String.valueOf(minScore), 5, height - MARGIN);
+        g2.drawString("Time (sec)", width - MARGIN - 20, MARGIN - 10);
+        g2.drawString(String.format("%.4f", maxTime), width - MARGIN + 2, MARGIN);
+        g2.drawString("0", width - MARGIN + 2, height - MARGIN);
     }
 
+    // Scores are filled dots on the left axis, times hollow dots on the right axis.
     private void plotData(Graphics2D g2, int[] scores, double[] times, Color color) {
-        int width = getWidth();
-        int height = getHeight();
-
         g2.setColor(color);
-        int maxScore = Arrays.stream(scores).max().orElse(1);
-        double maxTime = Arrays.stream(times).max().orElse(1.0);
-
         for (int i = 0; i < scores.length; i++) {
-            int x = 50 + i * (width - 100) / (scores.length - 1);
-            int yScore = height - 50 - (int) ((scores[i] / (double) maxScore) * (height - 100));
+            int x = runX(i);
+            int yScore = scoreY(scores[i]);
             g2.fillOval(x - 3, yScore - 3, 6, 6);
             if (i > 0) {
-                int prevX = 50 + (i - 1) * (width - 100) / (scores.length - 1);
-                int prevYScore = height - 50 - (int) ((scores[i - 1] / (double) maxScore) * (height - 100));
-                g2.drawLine(prevX, prevYScore, x, yScore);
+                g2.drawLine(runX(i - 1), scoreY(scores[i - 1]), x, yScore);
             }
-
-            int yTime = height - 50 - (int) ((times[i] / maxTime) * (height - 100));
-            g2.fillOval(x - 3, yTime - 3, 6, 6);
+        }
+        for (int i = 0; i < times.length; i++) {
+            int x = runX(i);
+            int yTime = timeY(times[i]);
+            g2.drawOval(x - 3, yTime - 3, 6, 6);
             if (i > 0) {
-                int prevX = 50 + (i - 1) * (width - 100) / (times.length - 1);
-                int prevYTime = height - 50 - (int) ((times[i - 1] / maxTime) * (height - 100));
-                g2.drawLine(prevX, prevYTime, x, yTime);
+                g2.drawLine(runX(i - 1), timeY(times[i - 1]), x, yTime);
+            }
+        }
+    }
+
+    private int runX(int run) {
+        int plotWidth = getWidth() - 2 * MARGIN;
+        return runs <= 1 ? MARGIN + plotWidth / 2 : MARGIN + run * plotWidth / (runs - 1);
+    }
+
+    private int scoreY(int score) {
+        return valueY(score, minScore, maxScore);
+    }
+
+    private int timeY(double time) {
+        return valueY(time, 0, maxTime);
+    }
+
+    private int valueY(double value, double min, double max) {
+        int plotHeight = getHeight() - 2 * MARGIN;
+        return getHeight() - MARGIN - (int) ((value - min) / Math.max(max - min, 1e-9) * plotHeight);
+    }
+
+    // One bucket per horizontal pixel: the current score is drawn as its min-max band per bucket and
+    // the best score as a line through each bucket's maximum.
+    private void paintConvergence(Graphics2D g2) {
+        int width = getWidth();
+        int height = getHeight();
+        int plotWidth = Math.max(1, width - 2 * MARGIN);
+        ConvergenceBuffer.Buckets buckets = samples.downsample(plotWidth);
+        g2.drawString("Time (sec)", width / 2, height - 20);
+        g2.drawString("Score", 5, MARGIN - 10);
+        if (buckets.isEmpty()) {
+            return;
+        }
+        int min = buckets.minScore;
+        int max = Math.max(buckets.maxScore, min + 1);
+        g2.drawString(String.valueOf(max), 5, MARGIN);
+        g2.drawString(String.valueOf(min), 5, height - MARGIN);
+        g2.drawString(String.format("%.2f", buckets.startSeconds), MARGIN, height - MARGIN + 15);
+        g2.drawString(String.format("%.2f", buckets.endSeconds), width - MARGIN - 20, height - MARGIN + 15);
+        g2.drawString(String.format("%d samples", samples.total()), width - MARGIN - 80, MARGIN - 10);
+
+        int previousX = -1;
+        int previousCurrent = 0;
+        int previousBest = 0;
+        for (int b = 0; b < buckets.length(); b++) {
+            if (buckets.counts[b] == 0) {
+                continue;
+            }
+            int x = MARGIN + b;
+            int lowCurrent = valueY(buckets.minCurrent[b], min, max);
+            int highCurrent = valueY(buckets.maxCurrent[b], min, max);
+            int best = valueY(buckets.maxBest[b], min, max);
+            g2.setColor(CURRENT_COLOR);
+            g2.drawLine(x, lowCurrent, x, highCurrent);
+            if (previousX >= 0) {
+                g2.drawLine(previousX, previousCurrent, x, highCurrent);
+            }
+            g2.setColor(Color.BLUE);
+            if (previousX >= 0) {
+                g2.drawLine(previousX, previousBest, x, best);
+            } else {
+                g2.drawLine(x, best, x, best);
             }
+            previousX = x;
+            previousCurrent = highCurrent;
+            previousBest = best;
         }
     }
 }
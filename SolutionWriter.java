@@ -0,0 +1,91 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Writes the result of a batch run as a compact binary file and as CSV.
+//
+// Binary (little-endian, like the graph format): int magic, int version, int n, int k, int best score,
+// int runs, runs x (int score, double seconds), n x int cluster of node (-1 when unassigned).
+public final class SolutionWriter {
+    static final int MAGIC = 0x47534F4C; // "GSOL"
+    static final int VERSION = 1;
+
+    private SolutionWriter() {
+    }
+
+    public static void writeBinary(Path file, RunStatistics statistics, int clusterCount) throws IOException {
+        writeBinary(file, statistics.bestAssignment(), clusterCount, statistics.bestScore(), statistics.scores(), statistics.times());
+    }
+
+    // A known partition, such as the planted blocks of a generated graph, as a solution without runs.
+    public static void writeBinary(Path file, int[] assignment, int clusterCount, int score) throws IOException {
+        writeBinary(file, assignment, clusterCount, score, new int[0], new double[0]);
+    }
+
+    private static void writeBinary(Path file, int[] assignment, int clusterCount, int score, int[] scores, double[] times) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(assignment != null ? assignment.length : 0)
+                    .putInt(clusterCount).putInt(score).putInt(scores.length);
+            for (int run = 0; run < scores.length; run++) {
+                ensure(channel, buffer, Integer.BYTES + Double.BYTES);
+                buffer.putInt(scores[run]).putDouble(times[run]);
+            }
+            if (assignment != null) {
+                for (int cluster : assignment) {
+                    ensure(channel, buffer, Integer.BYTES);
+                    buffer.putInt(cluster);
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // One row per restart followed by summary rows.
+    public static void writeRunsCsv(Path file, RunStatistics statistics) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("algorithm,run,score,seconds\n");
+            String algorithm = statistics.algorithm().displayName();
+            for (int run = 0; run < statistics.runs(); run++) {
+                out.write(algorithm + "," + (run + 1) + "," + statistics.score(run) + "," + statistics.time(run) + "\n");
+            }
+            out.write(algorithm + ",best," + statistics.bestScore() + ",\n");
+            out.write(algorithm + ",average," + statistics.averageScore() + "," + statistics.averageTime() + "\n");
+            out.write(algorithm + ",stddev," + statistics.stdDevScore() + ",\n");
+        }
+    }
+
+    public static void writeAssignmentCsv(Path file, Graph graph, RunStatistics statistics) throws IOException {
+        int[] assignment = statistics.bestAssignment();
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("node,cluster\n");
+            if (assignment != null) {
+                for (int u = 0; u < assignment.length; u++) {
+                    out.write(graph.name(u));
+                    out.write(',');
+                    out.write(Integer.toString(assignment[u]));
+                    out.write('\n');
+                }
+            }
+        }
+    }
+}
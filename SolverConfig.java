@@ -0,0 +1,182 @@
+// Immutable solver settings; each with* method returns a modified copy.
+public final class SolverConfig {
+    private int clusterCount = 2;
+    private int lower;
+    private int upper;
+    private int iterations = 10;
+    private int runs = 10;
+    private long seed = System.nanoTime();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int replicas = Runtime.getRuntime().availableProcessors();
+    private boolean affinitySeed = true;
+    private double timeBudgetSeconds;
+    private String cooling = "geometric";
+    private boolean reheating = true;
+    private long cacheBytes = 8L << 20;
+
+    private SolverConfig() {
+    }
+
+    private SolverConfig(SolverConfig other) {
+        clusterCount = other.clusterCount;
+        lower = other.lower;
+        upper = other.upper;
+        iterations = other.iterations;
+        runs = other.runs;
+        seed = other.seed;
+        parallelism = other.parallelism;
+        replicas = other.replicas;
+        affinitySeed = other.affinitySeed;
+        timeBudgetSeconds = other.timeBudgetSeconds;
+        cooling = other.cooling;
+        reheating = other.reheating;
+        cacheBytes = other.cacheBytes;
+    }
+
+    public static SolverConfig defaults() {
+        return new SolverConfig();
+    }
+
+    public int clusterCount() {
+        return clusterCount;
+    }
+
+    public int lower() {
+        return lower;
+    }
+
+    public int upper() {
+        return upper;
+    }
+
+    public int iterations() {
+        return iterations;
+    }
+
+    public int runs() {
+        return runs;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    public int parallelism() {
+        return parallelism;
+    }
+
+    public int replicas() {
+        return replicas;
+    }
+
+    // Whether the optimizers start from the edge-affinity construction instead of greedyHeuristic.
+    public boolean affinitySeed() {
+        return affinitySeed;
+    }
+
+    // Wall-clock budget for a whole solve in seconds; 0 means unlimited.
+    public double timeBudgetSeconds() {
+        return timeBudgetSeconds;
+    }
+
+    // Simulated annealing schedule name, see CoolingSchedule.create.
+    public String cooling() {
+        return cooling;
+    }
+
+    public boolean reheating() {
+        return reheating;
+    }
+
+    // Memory cap in bytes for the partition score caches of all concurrent restarts; 0 disables them.
+    public long cacheBytes() {
+        return cacheBytes;
+    }
+
+    public SolverConfig withClusterCount(int clusterCount) {
+        if (clusterCount < 1) {
+            throw new IllegalArgumentException("Cluster count must be positive: " + clusterCount);
+        }
+        SolverConfig copy = new SolverConfig(this);
+        copy.clusterCount = clusterCount;
+        return copy;
+    }
+
+    public SolverConfig withLimits(int lower, int upper) {
+        SolverConfig copy = new SolverConfig(this);
+        copy.lower = lower;
+        copy.upper = upper;
+        return copy;
+    }
+
+    public SolverConfig withIterations(int iterations) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("Iterations must not be negative: " + iterations);
+        }
+        SolverConfig copy = new SolverConfig(this);
+        copy.iterations = iterations;
+        return copy;
+    }
+
+    public SolverConfig withRuns(int runs) {
+        SolverConfig copy = new SolverConfig(this);
+        copy.runs = runs;
+        return copy;
+    }
+
+    public SolverConfig withSeed(long seed) {
+        SolverConfig copy = new SolverConfig(this);
+        copy.seed = seed;
+        return copy;
+    }
+
+    public SolverConfig withParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        SolverConfig copy = new SolverConfig(this);
+        copy.parallelism = parallelism;
+        return copy;
+    }
+
+    public SolverConfig withReplicas(int replicas) {
+        if (replicas < 1) {
+            throw new IllegalArgumentException("Replica count must be positive: " + replicas);
+        }
+        SolverConfig copy = new SolverConfig(this);
+        copy.replicas = replicas;
+        return copy;
+    }
+
+    public SolverConfig withAffinitySeed(boolean affinitySeed) {
+        SolverConfig copy = new SolverConfig(this);
+        copy.affinitySeed = affinitySeed;
+        return copy;
+    }
+
+    public SolverConfig withTimeBudget(double seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("Time budget must not be negative: " + seconds);
+        }
+        SolverConfig copy = new SolverConfig(this);
+        copy.timeBudgetSeconds = seconds;
+        return copy;
+    }
+
+    public SolverConfig withCooling(String cooling, boolean reheating) {
+        CoolingSchedule.create(cooling, reheating);
+        SolverConfig copy = new SolverConfig(this);
+        copy.cooling = cooling;
+        copy.reheating = reheating;
+        return copy;
+    }
+
+    public SolverConfig withCacheMemory(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Cache memory must not be negative: " + bytes);
+        }
+        SolverConfig copy = new SolverConfig(this);
+        copy.cacheBytes = bytes;
+        return copy;
+    }
+}
@@ -0,0 +1,6 @@
+// Receives progress from running optimizers, at most once per reporting interval of the SearchControl.
+// Events arrive on solver worker threads, so implementations must be thread-safe and return quickly.
+@FunctionalInterface
+public interface SolverListener {
+    void onProgress(ProgressEvent event);
+}
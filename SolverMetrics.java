@@ -0,0 +1,257 @@
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+// Striped counters and a move-delta histogram per algorithm. Collection is switched on with
+// -Dsolver.metrics=true; the flag is a static final, so the JIT removes every counter call from the
+// hot loops when it is off. With -Dsolver.metrics.jfr=true as well, the counters are also emitted
+// as a periodic JFR event (graphopt.SolverMetrics) while a flight recording is running.
+public final class SolverMetrics {
+    static final boolean ENABLED = Boolean.getBoolean("solver.metrics");
+    // Bucket 32 holds zero deltas; 32 + b and 32 - b hold positive and negative deltas of bit length b.
+    private static final int HISTOGRAM_CENTER = 32;
+    private static final Map<Algorithm, SolverMetrics> STAGES = new EnumMap<>(Algorithm.class);
+
+    static {
+        for (Algorithm algorithm : Algorithm.values()) {
+            STAGES.put(algorithm, new SolverMetrics(algorithm));
+        }
+        if (ENABLED && Boolean.getBoolean("solver.metrics.jfr")) {
+            FlightRecorder.addPeriodicEvent(MetricsEvent.class, SolverMetrics::emitEvents);
+        }
+    }
+
+    private final Algorithm algorithm;
+    private final LongAdder proposed = new LongAdder();
+    private final LongAdder rejectedSameCluster = new LongAdder();
+    private final LongAdder rejectedBounds = new LongAdder();
+    private final LongAdder evaluated = new LongAdder();
+    private final LongAdder cached = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder improving = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder[] deltas = new LongAdder[2 * HISTOGRAM_CENTER + 1];
+
+    private SolverMetrics(Algorithm algorithm) {
+        this.algorithm = algorithm;
+        for (int i = 0; i < deltas.length; i++) {
+            deltas[i] = new LongAdder();
+        }
+    }
+
+    static SolverMetrics of(Algorithm algorithm) {
+        return STAGES.get(algorithm);
+    }
+
+    // Counters outside the per-algorithm registry, for callers such as Benchmarks that drive the
+    // solvers without adding to what snapshot() and JFR report.
+    static SolverMetrics detached(Algorithm algorithm) {
+        return new SolverMetrics(algorithm);
+    }
+
+    // A random move was drawn.
+    void proposed() {
+        if (ENABLED) {
+            proposed.increment();
+        }
+    }
+
+    // The move was dropped because both nodes came from the same cluster or a cluster was empty.
+    void rejectedSameCluster() {
+        if (ENABLED) {
+            rejectedSameCluster.increment();
+        }
+    }
+
+    // The move was dropped because it would push a cluster outside [L, U].
+    void rejectedBounds() {
+        if (ENABLED) {
+            rejectedBounds.increment();
+        }
+    }
+
+    // A score delta was computed for a feasible move.
+    void evaluated(int delta) {
+        if (ENABLED) {
+            evaluated.increment();
+            deltas[bucket(delta)].increment();
+        }
+    }
+
+    // The move's score came from the partition cache instead of being evaluated.
+    void cached() {
+        if (ENABLED) {
+            cached.increment();
+        }
+    }
+
+    void accepted(int delta) {
+        if (ENABLED) {
+            accepted.increment();
+            if (delta > 0) {
+                improving.increment();
+            }
+        }
+    }
+
+    void completedRun(long elapsedNanos) {
+        if (ENABLED) {
+            runs.increment();
+            nanos.add(elapsedNanos);
+        }
+    }
+
+    private static int bucket(int delta) {
+        int bits = 32 - Integer.numberOfLeadingZeros(delta == Integer.MIN_VALUE ? Integer.MAX_VALUE : Math.abs(delta));
+        return delta >= 0 ? HISTOGRAM_CENTER + bits : HISTOGRAM_CENTER - bits;
+    }
+
+    public static void reset() {
+        for (SolverMetrics metrics : STAGES.values()) {
+            for (LongAdder counter : metrics.counters().values()) {
+                counter.reset();
+            }
+            for (LongAdder bucket : metrics.deltas) {
+                bucket.reset();
+            }
+        }
+    }
+
+    // Stages that recorded anything, in Algorithm order.
+    public static List<Snapshot> snapshot() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (SolverMetrics metrics : STAGES.values()) {
+            Snapshot snapshot = metrics.snapshotStage();
+            if (snapshot.count("proposed") + snapshot.count("evaluated") + snapshot.count("cached") + snapshot.count("runs") > 0) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        for (Snapshot snapshot : snapshot()) {
+            report.append(snapshot).append('\n');
+        }
+        return report.toString();
+    }
+
+    private Map<String, LongAdder> counters() {
+        Map<String, LongAdder> counters = new LinkedHashMap<>();
+        counters.put("proposed", proposed);
+        counters.put("rejectedSameCluster", rejectedSameCluster);
+        counters.put("rejectedBounds", rejectedBounds);
+        counters.put("evaluated", evaluated);
+        counters.put("cached", cached);
+        counters.put("accepted", accepted);
+        counters.put("improving", improving);
+        counters.put("runs", runs);
+        counters.put("nanos", nanos);
+        return counters;
+    }
+
+    private Snapshot snapshotStage() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> counter : counters().entrySet()) {
+            counts.put(counter.getKey(), counter.getValue().sum());
+        }
+        long[] histogram = new long[deltas.length];
+        for (int i = 0; i < deltas.length; i++) {
+            histogram[i] = deltas[i].sum();
+        }
+        return new Snapshot(algorithm, counts, histogram);
+    }
+
+    private static void emitEvents() {
+        for (Snapshot snapshot : snapshot()) {
+            MetricsEvent event = new MetricsEvent();
+            event.stage = snapshot.algorithm().displayName();
+            event.proposed = snapshot.count("proposed");
+            event.rejectedBounds = snapshot.count("rejectedBounds");
+            event.evaluated = snapshot.count("evaluated");
+            event.accepted = snapshot.count("accepted");
+            event.improving = snapshot.count("improving");
+            event.commit();
+        }
+    }
+
+    // Point-in-time copy of one stage's counters.
+    public static final class Snapshot {
+        private final Algorithm algorithm;
+        private final Map<String, Long> counts;
+        private final long[] deltaHistogram;
+
+        Snapshot(Algorithm algorithm, Map<String, Long> counts, long[] deltaHistogram) {
+            this.algorithm = algorithm;
+            this.counts = Collections.unmodifiableMap(counts);
+            this.deltaHistogram = deltaHistogram;
+        }
+
+        public Algorithm algorithm() {
+            return algorithm;
+        }
+
+        public Map<String, Long> counts() {
+            return counts;
+        }
+
+        public long count(String name) {
+            return counts.getOrDefault(name, 0L);
+        }
+
+        // Feasible move evaluations per second of run time.
+        public double evaluationRate() {
+            long nanos = count("nanos");
+            return nanos == 0 ? 0.0 : count("evaluated") / (nanos / 1_000_000_000.0);
+        }
+
+        // Number of evaluated deltas whose magnitude has the given bit length; 0 means delta == 0.
+        public long deltas(boolean positive, int bitLength) {
+            return deltaHistogram[positive ? HISTOGRAM_CENTER + bitLength : HISTOGRAM_CENTER - bitLength];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(algorithm.displayName()).append(':');
+            for (Map.Entry<String, Long> count : counts.entrySet()) {
+                text.append(' ').append(count.getKey()).append('=').append(count.getValue());
+            }
+            text.append(String.format(" evaluations/sec=%.0f%n  deltas:", evaluationRate()));
+            for (int i = 0; i < deltaHistogram.length; i++) {
+                if (deltaHistogram[i] > 0) {
+                    int bits = Math.abs(i - HISTOGRAM_CENTER);
+                    String range = bits == 0 ? "0" : (i < HISTOGRAM_CENTER ? "-" : "+") + "2^" + (bits - 1);
+                    text.append(' ').append(range).append('=').append(deltaHistogram[i]);
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    @Name("graphopt.SolverMetrics")
+    @Label("Solver Metrics")
+    @Category("Graph Optimization")
+    @Period("1 s")
+    static final class MetricsEvent extends Event {
+        @Label("Stage")
+        String stage;
+        @Label("Proposed Moves")
+        long proposed;
+        @Label("Rejected by L/U")
+        long rejectedBounds;
+        @Label("Evaluations")
+        long evaluated;
+        @Label("Accepted Moves")
+        long accepted;
+        @Label("Improving Moves")
+        long improving;
+    }
+}
@@ -0,0 +1,160 @@
+import java.awt.Point;
+import java.util.*;
+import java.util.function.LongConsumer;
+
+// Uniform grid over the editor canvas. Points are bucketed by cell, so a proximity test only looks at
+// the 3 x 3 cells around the query. Segments are registered in every cell they pass through, so a
+// crossing test only sees segments sharing at least one cell with the query segment. Cells live in a
+// hash map, which keeps the grid unbounded and proportional to what is stored.
+final class SpatialGrid {
+    private final int cellSize;
+    private final Map<Long, List<Point>> points = new HashMap<>();
+    private final Map<Long, List<Integer>> segmentCells = new HashMap<>();
+    private final List<Point[]> segments = new ArrayList<>();
+    private int[] segmentMarks = new int[16];
+    private int mark;
+
+    SpatialGrid(int cellSize) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    void addPoint(Point point) {
+        points.computeIfAbsent(key(cell(point.x), cell(point.y)), key -> new ArrayList<>()).add(point);
+    }
+
+    void removePoint(Point point) {
+        List<Point> bucket = points.get(key(cell(point.x), cell(point.y)));
+        if (bucket != null) {
+            bucket.remove(point);
+        }
+    }
+
+    // Whether a stored point lies closer than distance to the query; distance must not exceed the cell size.
+    boolean hasPointWithin(Point point, double distance) {
+        int x = cell(point.x);
+        int y = cell(point.y);
+        for (int cx = x - 1; cx <= x + 1; cx++) {
+            for (int cy = y - 1; cy <= y + 1; cy++) {
+                List<Point> bucket = points.get(key(cx, cy));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Point other : bucket) {
+                    if (other.distance(point) < distance) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    void addSegment(Point a, Point b) {
+        int id = segments.size();
+        segments.add(new Point[]{a, b});
+        if (id == segmentMarks.length) {
+            segmentMarks = Arrays.copyOf(segmentMarks, id * 2);
+        }
+        forEachCell(a, b, key -> segmentCells.computeIfAbsent(key, k -> new ArrayList<>()).add(id));
+    }
+
+    // Removes a stored a-b segment (in either direction) from every cell it was registered in.
+    void removeSegment(Point a, Point b) {
+        int[] found = {-1};
+        forEachCell(a, b, key -> {
+            List<Integer> bucket = segmentCells.get(key);
+            if (bucket == null) {
+                return;
+            }
+            for (int id : bucket) {
+                Point[] segment = segments.get(id);
+                if ((segment[0].equals(a) && segment[1].equals(b)) || (segment[0].equals(b) && segment[1].equals(a))) {
+                    found[0] = id;
+                }
+            }
+        });
+        if (found[0] < 0) {
+            return;
+        }
+        Integer id = found[0];
+        Point[] segment = segments.get(id);
+        forEachCell(segment[0], segment[1], key -> {
+            List<Integer> bucket = segmentCells.get(key);
+            if (bucket != null) {
+                bucket.remove(id);
+            }
+        });
+    }
+
+    // Stored segments sharing a cell with a-b, each reported once, as {start, end} pairs.
+    List<Point[]> segmentsNear(Point a, Point b) {
+        List<Point[]> candidates = new ArrayList<>();
+        mark++;
+        forEachCell(a, b, key -> {
+            List<Integer> bucket = segmentCells.get(key);
+            if (bucket == null) {
+                return;
+            }
+            for (int id : bucket) {
+                if (segmentMarks[id] != mark) {
+                    segmentMarks[id] = mark;
+                    candidates.add(segments.get(id));
+                }
+            }
+        });
+        return candidates;
+    }
+
+    // Amanatides–Woo traversal of the cells the segment passes through. When it passes exactly through
+    // a cell corner both side cells are visited, so segments meeting there always share a cell.
+    private void forEachCell(Point a, Point b, LongConsumer action) {
+        int x = cell(a.x);
+        int y = cell(a.y);
+        int endX = cell(b.x);
+        int endY = cell(b.y);
+        int stepX = Integer.signum(endX - x);
+        int stepY = Integer.signum(endY - y);
+        double dx = b.x - a.x;
+        double dy = b.y - a.y;
+        double deltaX = stepX != 0 ? cellSize / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double deltaY = stepY != 0 ? cellSize / Math.abs(dy) : Double.POSITIVE_INFINITY;
+        double maxX = stepX > 0 ? ((x + 1.0) * cellSize - a.x) / dx : stepX < 0 ? ((double) x * cellSize - a.x) / dx : Double.POSITIVE_INFINITY;
+        double maxY = stepY > 0 ? ((y + 1.0) * cellSize - a.y) / dy : stepY < 0 ? ((double) y * cellSize - a.y) / dy : Double.POSITIVE_INFINITY;
+
+        action.accept(key(x, y));
+        // Each step moves one cell closer along at least one axis, so this bounds the walk even when
+        // rounding makes the crossing times disagree with the end cell.
+        int remaining = Math.abs(endX - x) + Math.abs(endY - y);
+        while (remaining > 0) {
+            if (maxX == maxY && x != endX && y != endY) {
+                action.accept(key(x + stepX, y));
+                action.accept(key(x, y + stepY));
+                x += stepX;
+                y += stepY;
+                maxX += deltaX;
+                maxY += deltaY;
+                remaining -= 2;
+            } else if ((maxX < maxY && x != endX) || y == endY) {
+                x += stepX;
+                maxX += deltaX;
+                remaining--;
+            } else {
+                y += stepY;
+                maxY += deltaY;
+                remaining--;
+            }
+            action.accept(key(x, y));
+        }
+    }
+
+    private int cell(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
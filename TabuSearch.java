@@ -0,0 +1,226 @@
+import java.util.SplittableRandom;
+
+// Tabu search over L/U-feasible relocations and swaps. A node x cluster connection table is kept up
+// to date in O(degree) per move, so each candidate node's best target cluster costs O(k) and each
+// swap partner O(1). Every iteration draws a candidate list of nodes, pairs each with its best
+// target (relocating when the bounds allow, otherwise swapping with the best of a few members of
+// the target), and applies the best non-tabu move even when it lowers the score. A tabu move is
+// still taken when it would beat the best score found (aspiration). Moving a node makes its return
+// to the cluster it left tabu for a randomized tenure, checked in O(1) against iteration stamps.
+// With a cache of visited partition hashes the tenure is reactive: it grows whenever the search
+// revisits a partition (cycling) and shrinks again after a stretch without revisits.
+public final class TabuSearch {
+    private static final int CANDIDATES = 16;
+    private static final int PARTNERS = 8;
+    private static final int REACTION_INTERVAL = 1_000;
+    private static final SolverMetrics METRICS = SolverMetrics.of(Algorithm.TABU_SEARCH);
+
+    private final Partition clusters;
+    private final Graph graph;
+    private final int k;
+    private final int[] conn;
+    private final int[] edgeTo;
+    private final int[] edgeMarks;
+    private int mark;
+    private final int[] leftCluster;
+    private final long[] tabuUntil;
+    private final int minTenure;
+    private final int maxTenure;
+    private int tenure;
+    private final ScoreCache visited;
+    private long repetitions;
+
+    public TabuSearch(Partition clusters) {
+        this(clusters, null);
+    }
+
+    // visited may be null, which keeps the tenure fixed.
+    public TabuSearch(Partition clusters, ScoreCache visited) {
+        this.clusters = clusters;
+        this.graph = clusters.graph();
+        this.k = clusters.clusterCount();
+        int n = graph.nodeCount();
+        if ((long) n * k > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Tabu search needs n * k below 2^31, got " + n + " * " + k);
+        }
+        this.conn = new int[n * k];
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+                int c = clusters.clusterOf(graph.target(e));
+                if (c >= 0) {
+                    conn[u * k + c] += graph.edgeWeight(e);
+                }
+            }
+        }
+        this.edgeTo = new int[n];
+        this.edgeMarks = new int[n];
+        this.leftCluster = new int[n];
+        this.tabuUntil = new long[n];
+        this.minTenure = Math.max(5, Math.min(50, n / 20));
+        this.maxTenure = Math.max(minTenure, n / 4);
+        this.tenure = minTenure;
+        this.visited = visited;
+    }
+
+    // Moves that returned the search to a partition it had already visited.
+    public long repetitions() {
+        return repetitions;
+    }
+
+    // Leaves the best partition found in clusters and returns its score.
+    public int run(int iterations, SplittableRandom random, SearchControl control) {
+        int currentScore = clusters.score();
+        BestPartition best = new BestPartition(clusters, currentScore);
+        int accepted = 0;
+        int checked = 0;
+        long lastRepetition = 0;
+        int i = 0;
+
+        for (; i < iterations && graph.nodeCount() > 0; i++) {
+            if ((i & SearchControl.CHECK_MASK) == 0 && i > 0) {
+                if (control.checkpoint(SearchControl.CHECK_INTERVAL, accepted, currentScore, best.score(), best.holder(clusters, currentScore))) {
+                    break;
+                }
+                accepted = 0;
+                checked = i;
+            }
+
+            int chosenNode = -1;
+            int chosenPartner = -1;
+            int chosenTarget = -1;
+            int chosenDelta = Integer.MIN_VALUE;
+            for (int c = 0; c < CANDIDATES; c++) {
+                METRICS.proposed();
+                int u = random.nextInt(graph.nodeCount());
+                int source = clusters.clusterOf(u);
+                if (source < 0) {
+                    continue;
+                }
+                int target = bestTarget(u, source, i, currentScore, best.score());
+                if (target < 0) {
+                    METRICS.rejectedSameCluster();
+                    continue;
+                }
+                int gain = conn[u * k + target] - conn[u * k + source];
+                if (clusters.relocateKeepsFeasible(u, target)) {
+                    METRICS.evaluated(gain);
+                    if (gain > chosenDelta) {
+                        chosenNode = u;
+                        chosenPartner = -1;
+                        chosenTarget = target;
+                        chosenDelta = gain;
+                    }
+                    continue;
+                }
+
+                markNeighbours(u);
+                boolean found = false;
+                for (int p = 0; p < PARTNERS; p++) {
+                    int v = partner(u, target, p, random);
+                    if (v < 0 || !clusters.swapKeepsFeasible(u, v)) {
+                        continue;
+                    }
+                    int weight = edgeMarks[v] == mark ? edgeTo[v] : 0;
+                    int delta = gain + conn[v * k + source] - conn[v * k + target] - 2 * weight;
+                    METRICS.evaluated(delta);
+                    found = true;
+                    // bestTarget let u's move through on its relocation gain; the swap must be allowed
+                    // on its own delta, for both of its moves.
+                    boolean aspirates = currentScore + delta > best.score();
+                    if (delta > chosenDelta && (aspirates || (!isTabu(u, target, i) && !isTabu(v, source, i)))) {
+                        chosenNode = u;
+                        chosenPartner = v;
+                        chosenTarget = target;
+                        chosenDelta = delta;
+                    }
+                }
+                if (!found) {
+                    METRICS.rejectedBounds();
+                }
+            }
+            if (chosenNode < 0) {
+                continue;
+            }
+
+            METRICS.accepted(chosenDelta);
+            best.beforeMove(clusters, chosenDelta);
+            int source = clusters.clusterOf(chosenNode);
+            move(chosenNode, source, chosenTarget, i, random);
+            if (chosenPartner >= 0) {
+                move(chosenPartner, chosenTarget, source, i, random);
+            }
+            currentScore += chosenDelta;
+            accepted++;
+
+            if (visited != null) {
+                if (visited.put(clusters.hash(), currentScore)) {
+                    repetitions++;
+                    lastRepetition = i;
+                    tenure = Math.min(maxTenure, tenure + tenure / 10 + 1);
+                } else if (i - lastRepetition > REACTION_INTERVAL) {
+                    lastRepetition = i;
+                    tenure = Math.max(minTenure, tenure - tenure / 10 - 1);
+                }
+            }
+
+            best.afterMove(currentScore);
+        }
+        best.restore(clusters, currentScore);
+        control.complete(i - checked, accepted, best.score(), clusters);
+        return best.score();
+    }
+
+    // Cluster other than source with the highest connection of u, skipping tabu targets unless
+    // relocating there would beat the best score; -1 when there is none.
+    private int bestTarget(int u, int source, long iteration, int currentScore, int bestScore) {
+        int base = u * k;
+        int target = -1;
+        for (int c = 0; c < k; c++) {
+            if (c == source || (target >= 0 && conn[base + c] <= conn[base + target])) {
+                continue;
+            }
+            if (isTabu(u, c, iteration) && currentScore + conn[base + c] - conn[base + source] <= bestScore) {
+                continue;
+            }
+            target = c;
+        }
+        return target;
+    }
+
+    // Swap partners for u: first its neighbours in the target cluster, then random members of it.
+    private int partner(int u, int target, int attempt, SplittableRandom random) {
+        int degree = graph.degree(u);
+        if (attempt < PARTNERS / 2 && degree > 0) {
+            int v = graph.target(graph.adjacencyStart(u) + random.nextInt(degree));
+            if (clusters.clusterOf(v) == target) {
+                return v;
+            }
+        }
+        int size = clusters.size(target);
+        return size == 0 ? -1 : clusters.member(target, random.nextInt(size));
+    }
+
+    private void markNeighbours(int u) {
+        mark++;
+        for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+            int v = graph.target(e);
+            edgeTo[v] = graph.edgeWeight(e);
+            edgeMarks[v] = mark;
+        }
+    }
+
+    private void move(int u, int from, int to, long iteration, SplittableRandom random) {
+        clusters.relocate(u, to);
+        for (int e = graph.adjacencyStart(u); e < graph.adjacencyEnd(u); e++) {
+            int base = graph.target(e) * k;
+            conn[base + from] -= graph.edgeWeight(e);
+            conn[base + to] += graph.edgeWeight(e);
+        }
+        leftCluster[u] = from;
+        tabuUntil[u] = iteration + tenure + random.nextInt(tenure);
+    }
+
+    private boolean isTabu(int u, int target, long iteration) {
+        return target == leftCluster[u] && iteration < tabuUntil[u];
+    }
+}